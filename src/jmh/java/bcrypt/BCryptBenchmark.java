@@ -0,0 +1,41 @@
+package bcrypt;
+
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures how many bcrypt hashes one thread creates per second for
+ * different costs. Run it with one thread per core to get the throughput of the
+ * whole machine: gradlew jmh -Pinclude=BCryptBenchmark -PjmhArgs="-t 8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BCryptBenchmark {
+
+    @Param({"4", "6", "8", "10", "12"})
+    private int cost;
+
+    private String salt;
+
+    @Setup
+    public void setUp() {
+        salt = BCrypt.gensalt(cost);
+    }
+
+    @Benchmark
+    public String hash() {
+        return BCrypt.hashpw("testpassword", salt);
+    }
+}
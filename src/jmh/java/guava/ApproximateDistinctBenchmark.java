@@ -0,0 +1,74 @@
+package guava;
+
+import com.google.common.hash.Funnels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * This class compares the exact {@link Stream#distinct()} and {@link Collectors#toSet()}
+ * with the {@link ApproximateDistinct} operations. Every element is contained about twice.
+ * Run it with the gc profiler to see the allocated bytes:
+ * gradlew jmh -Pinclude=ApproximateDistinctBenchmark -PjmhArgs="-prof gc"
+ * <p>
+ * The exact versions hold a HashSet with all distinct elements, the bloom filter needs
+ * about 1.2 bytes per expected element for 1% false positives and the sketch 16 KB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ApproximateDistinctBenchmark {
+
+    @Param({"100000", "10000000"})
+    private int size;
+
+    private long[] numbers;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        numbers = new long[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = random.nextInt(size / 2);
+        }
+    }
+
+    @Benchmark
+    public long exactDistinct() {
+        return LongStream.of(numbers).boxed().distinct().count();
+    }
+
+    @Benchmark
+    public long bloomFilterDistinct() {
+        return ApproximateDistinct.distinct(LongStream.of(numbers).boxed(), Funnels.longFunnel(), size / 2, 0.01).count();
+    }
+
+    @Benchmark
+    public int exactCountDistinct() {
+        return LongStream.of(numbers).boxed().collect(Collectors.toSet()).size();
+    }
+
+    @Benchmark
+    public long hyperLogLogCountDistinct() {
+        return LongStream.of(numbers).boxed().collect(ApproximateDistinct.countDistinct(Funnels.longFunnel()));
+    }
+
+    @Benchmark
+    public long hyperLogLogCountDistinctLongs() {
+        return ApproximateDistinct.countDistinct(LongStream.of(numbers));
+    }
+}
@@ -0,0 +1,103 @@
+package jdk1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class compares the {@link DeepCopier} with a deep copy that looks up the fields
+ * with reflection on every copy and with a copy through java serialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class DeepCopyBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ArrayList<Person> persons;
+
+    @Setup
+    public void setUp() {
+        persons = new ArrayList<>(Person.createPersons(size));
+        for (Person person : persons) {
+            person.setChild(new Person(person.getName() + "Child", 1));
+        }
+    }
+
+    @Benchmark
+    public List<Person> deepCopier() {
+        return DeepCopier.copyAll(persons);
+    }
+
+    @Benchmark
+    public List<Person> deepCopierParallel() {
+        return DeepCopier.copyAllParallel(persons);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return reflectionCopy(persons, new IdentityHashMap<>());
+    }
+
+    @Benchmark
+    public Object serialization() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(persons);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+
+    private static Object reflectionCopy(final Object original, final IdentityHashMap<Object, Object> copies)
+            throws ReflectiveOperationException, IOException {
+        if (original == null || original instanceof String) {
+            return original;
+        }
+        final Object existing = copies.get(original);
+        if (existing != null) {
+            return existing;
+        }
+        if (original instanceof ArrayList) {
+            final List<Object> copy = new ArrayList<>();
+            copies.put(original, copy);
+            for (Object element : (ArrayList<?>) original) {
+                copy.add(reflectionCopy(element, copies));
+            }
+            return copy;
+        }
+        final Person copy = new Person(null);
+        copies.put(original, copy);
+        for (Field field : original.getClass().getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                final Object value = field.get(original);
+                field.set(copy, field.getType().isPrimitive() ? value : reflectionCopy(value, copies));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,83 @@
+package jdk1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class compares a {@link PersonArena} with a list of persons on the heap. The
+ * pipelines are the ones of {@link jdk8.StreamsTest#createAPhrase()} and
+ * {@link jdk8.StreamsTest#useCollectorToTransformToListMapSet()}, and {@link #fullGc()}
+ * measures how long a full collection takes while the persons are alive.
+ * Run it with the gc profiler to see the collections of the pipelines:
+ * gradlew jmh -Pinclude=PersonArenaBenchmark -PjmhArgs="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PersonArenaBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param({"heap", "arena"})
+    private String storage;
+
+    private List<Person> persons;
+    private PersonArena arena;
+
+    @Setup
+    public void setUp() {
+        final List<Person> created = Person.createPersons(size);
+        if (storage.equals("heap")) {
+            persons = created;
+        } else {
+            arena = PersonArena.of(created);
+        }
+    }
+
+    @Benchmark
+    public long countAdults() {
+        if (persons != null) {
+            return persons.stream().filter(p -> p.getAge() >= 18).count();
+        }
+        return arena.stream().filter(p -> p.getAge() >= 18).count();
+    }
+
+    @Benchmark
+    public long countNamesStartingWith() {
+        if (persons != null) {
+            return persons.stream().filter(p -> p.getName().startsWith("Person1")).count();
+        }
+        return arena.stream().filter(p -> p.nameStartsWith("Person1")).count();
+    }
+
+    @Benchmark
+    public long sumNameLengthsOfAdults() {
+        if (persons != null) {
+            return persons.stream().filter(p -> p.getAge() >= 18).map(Person::getName).mapToInt(String::length).sum();
+        }
+        return arena.stream().filter(p -> p.getAge() >= 18).map(PersonArena.Cursor::getName).mapToInt(String::length).sum();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+}
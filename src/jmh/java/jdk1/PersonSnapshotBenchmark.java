@@ -0,0 +1,69 @@
+package jdk1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class compares the start of a service that creates its persons again with one
+ * that opens a {@link PersonSnapshot}. Both read all ages once, like a first aggregation.
+ * Run it with the gc profiler to see how many bytes end up on the heap:
+ * gradlew jmh -Pinclude=PersonSnapshotBenchmark -PjmhArgs="-prof gc"
+ * <p>
+ * The snapshot is in the page cache after the first iteration, so this measures a warm
+ * start of the process and not a cold disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PersonSnapshotBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("persons", ".snapshot");
+        PersonSnapshot.write(Person.createPersons(size), file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long rebuildList() {
+        final List<Person> persons = Person.createPersons(size);
+        long sum = 0;
+        for (Person person : persons) {
+            sum += person.getAge();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long openSnapshot() {
+        return PersonSnapshot.open(file).sumOfAges();
+    }
+}
@@ -0,0 +1,65 @@
+package jdk1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class compares the aggregations of a {@link PersonTable} with the same
+ * stream pipelines on a list of persons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PersonTableBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private List<Person> persons;
+    private PersonTable table;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        persons = Person.createPersons(size);
+        table = PersonTable.of(persons);
+        counts = new int[100];
+    }
+
+    @Benchmark
+    public Integer sumAgesList() {
+        return persons.stream()
+                .map(Person::getAge)
+                .collect(Collectors.summingInt(Integer::intValue));
+    }
+
+    @Benchmark
+    public long sumAgesTable() {
+        return table.sumOfAges();
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countByAgeList() {
+        return persons.stream()
+                .collect(Collectors.groupingBy(Person::getAge, Collectors.counting()));
+    }
+
+    @Benchmark
+    public int[] countByAgeTable() {
+        return table.countByAge(counts);
+    }
+}
@@ -0,0 +1,83 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class compares hot counters in a {@link ConcurrentHashMap} with the
+ * {@link ConcurrentCounterMap}. All threads count the same few keys.
+ * <p>
+ * The contention depends on the number of threads, {@link #main(String[])} runs the
+ * benchmarks with 1, 2, 4, 8, 16, 32, 64 and 128 threads. A single thread count can be
+ * run with: gradlew jmh -Pinclude=ConcurrentCounterMapBenchmark -PjmhArgs="-t 64"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConcurrentCounterMapBenchmark {
+
+    @Param({"1", "16"})
+    private int keyCount;
+
+    private String[] keys;
+
+    private final ConcurrentHashMap<String, Integer> mergeMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> computeMap = new ConcurrentHashMap<>();
+    private final ConcurrentCounterMap<String> counterMap = new ConcurrentCounterMap<>();
+
+    @Setup
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key" + i;
+        }
+    }
+
+    private String nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keyCount)];
+    }
+
+    @Benchmark
+    public void merge() {
+        mergeMap.merge(nextKey(), 1, Integer::sum);
+    }
+
+    @Benchmark
+    public void compute() {
+        computeMap.compute(nextKey(), (key, count) -> count == null ? 1 : count + 1);
+    }
+
+    @Benchmark
+    public void counterMap() {
+        counterMap.increment(nextKey());
+    }
+
+    /**
+     * Runs all benchmarks with 1 to 128 threads.
+     */
+    public static void main(final String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 128; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(ConcurrentCounterMapBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * This class compares the {@link FastIsoDates} with the ISO formatters of {@link DateTimeFormatter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastIsoDatesBenchmark {
+
+    private final String date = "2017-07-09";
+    private final String dateTime = "2017-07-09T10:15:30.123";
+    private final byte[] dateTimeBytes = dateTime.getBytes(StandardCharsets.US_ASCII);
+    private final long epochSecond = LocalDateTime.of(2017, 7, 9, 10, 15, 30).toEpochSecond(ZoneOffset.UTC);
+    private final LocalDateTime localDateTime = LocalDateTime.of(2017, 7, 9, 10, 15, 30);
+    private final char[] buffer = new char[FastIsoDates.DATE_TIME_LENGTH];
+
+    @Benchmark
+    public long parseDateFormatter() {
+        return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE).toEpochDay();
+    }
+
+    @Benchmark
+    public long parseDateFast() {
+        return FastIsoDates.parseEpochDay(date);
+    }
+
+    @Benchmark
+    public long parseDateTimeFormatter() {
+        return LocalDateTime.parse(dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public long parseDateTimeFast() {
+        return FastIsoDates.parseEpochSecond(dateTime);
+    }
+
+    @Benchmark
+    public long parseDateTimeBytesFast() {
+        return FastIsoDates.parseEpochSecond(dateTimeBytes, 0, dateTimeBytes.length);
+    }
+
+    @Benchmark
+    public String formatDateTimeFormatter() {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(localDateTime);
+    }
+
+    @Benchmark
+    public char[] formatDateTimeFast() {
+        FastIsoDates.formatDateTime(epochSecond, buffer, 0);
+        return buffer;
+    }
+}
@@ -0,0 +1,85 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk1.Person;
+
+/**
+ * This class compares {@link Collectors#joining(CharSequence)} followed by a write with
+ * the {@link JoiningSink}. Run it with the gc profiler to see the allocated bytes:
+ * gradlew jmh -Pinclude=JoiningSinkBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class JoiningSinkBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private List<String> names;
+
+    private final JoiningSink sink = JoiningSink.joining(",");
+
+    /**
+     * Throws all bytes away, like writing to a fast disk.
+     */
+    private final WritableByteChannel discard = new WritableByteChannel() {
+        @Override
+        public int write(final ByteBuffer src) {
+            final int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        names = Person.createPersons(size).stream()
+                .map(Person::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int collectorsJoining() throws IOException {
+        final String csv = names.stream().collect(Collectors.joining(","));
+        return discard.write(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public long sink() {
+        return sink.writeTo(names.stream(), discard);
+    }
+
+    @Benchmark
+    public long sinkParallel() {
+        return sink.writeParallel(names.stream(), discard);
+    }
+}
@@ -0,0 +1,72 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jdk1.Person;
+
+/**
+ * This class compares {@link Collectors#toMap(Function, Function, java.util.function.BinaryOperator)}
+ * and {@link Collectors#toConcurrentMap(Function, Function, java.util.function.BinaryOperator)} with the
+ * presized {@link MapCollectors}, mapping persons by their unique name.
+ * <p>
+ * Run it with: gradlew jmh -Pinclude=MapCollectorsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class MapCollectorsBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        persons = Person.createPersons(size);
+    }
+
+    private Stream<Person> persons() {
+        return parallel ? persons.parallelStream() : persons.stream();
+    }
+
+    @Benchmark
+    public Map<String, Person> collectorsToMap() {
+        return persons().collect(Collectors.toMap(Person::getName, Function.identity(), (p1, p2) -> p1));
+    }
+
+    @Benchmark
+    public Map<String, Person> collectorsToConcurrentMap() {
+        return persons().collect(Collectors.toConcurrentMap(Person::getName, Function.identity(), (p1, p2) -> p1));
+    }
+
+    @Benchmark
+    public Map<String, Person> collectToMap() {
+        return MapCollectors.collectToMap(persons(), Person::getName, Function.identity(), (p1, p2) -> p1);
+    }
+
+    @Benchmark
+    public Map<String, Person> collectToMapUnordered() {
+        return MapCollectors.collectToMap(persons().unordered(), Person::getName, Function.identity(), (p1, p2) -> p1);
+    }
+}
@@ -0,0 +1,130 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jdk1.Person;
+
+/**
+ * This class compares streams written in an unlucky order with the same operations
+ * recorded in a {@link Pipeline}, which reorders them before the execution.
+ * <p>
+ * Run it with: gradlew jmh -Pinclude=PipelineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private static final Comparator<Person> BY_AGE = Comparator.comparingInt(Person::getAge);
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        persons = Person.createPersons(size);
+    }
+
+    private static Person upperCaseName(final Person person) {
+        return new Person(person.getName().toUpperCase(), person.getAge());
+    }
+
+    private static boolean isTeenager(final Person person) {
+        return person.getAge() >= 13 && person.getAge() <= 19;
+    }
+
+    /**
+     * Transforms and sorts every person before only the teenagers are taken.
+     */
+    @Benchmark
+    public List<String> streamTransformBeforeFilter() {
+        return persons.stream()
+                .map(PipelineBenchmark::upperCaseName)
+                .sorted(BY_AGE)
+                .filter(PipelineBenchmark::isTeenager)
+                .map(Person::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> streamFilterFirst() {
+        return persons.stream()
+                .filter(PipelineBenchmark::isTeenager)
+                .map(PipelineBenchmark::upperCaseName)
+                .sorted(BY_AGE)
+                .map(Person::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> pipeline() {
+        return Pipeline.of(persons)
+                .transform(PipelineBenchmark::upperCaseName)
+                .sorted(BY_AGE)
+                .hoistableFilter(PipelineBenchmark::isTeenager)
+                .map(Person::getName)
+                .toList();
+    }
+
+    /**
+     * The sort is useless because a set has no order.
+     */
+    @Benchmark
+    public Set<String> streamSortedIntoSet() {
+        return persons.stream()
+                .sorted(BY_AGE)
+                .map(Person::getName)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<String> pipelineSortedIntoSet() {
+        return Pipeline.of(persons)
+                .sorted(BY_AGE)
+                .map(Person::getName)
+                .toSet();
+    }
+
+    /**
+     * Many small stages, the pipeline fuses them into one.
+     */
+    @Benchmark
+    public long streamManyStages() {
+        return persons.stream()
+                .map(Person::getAge)
+                .filter(age -> age > 10)
+                .map(age -> age * 2)
+                .filter(age -> age % 3 != 0)
+                .map(age -> age + 1)
+                .count();
+    }
+
+    @Benchmark
+    public long pipelineManyStages() {
+        return Pipeline.of(persons)
+                .map(Person::getAge)
+                .filter(age -> age > 10)
+                .map(age -> age * 2)
+                .filter(age -> age % 3 != 0)
+                .map(age -> age + 1)
+                .count();
+    }
+}
@@ -0,0 +1,79 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class compares calling {@link String#startsWith(String)} for every rule like in
+ * {@link StreamsTest#simpleListFiltering()} with a lookup in a {@link PrefixMatcher}.
+ * Half of the URLs match a rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrefixMatcherBenchmark {
+
+    private static final int URLS = 1024;
+
+    @Param({"10", "1000", "10000"})
+    private int rules;
+
+    private String[] prefixes;
+    private PrefixMatcher matcher;
+    private String[] urls;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final List<String> ruleList = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            ruleList.add("https://host" + i + ".example.com/api/v" + random.nextInt(3) + "/");
+        }
+        prefixes = ruleList.toArray(new String[0]);
+        matcher = PrefixMatcher.of(ruleList);
+        urls = new String[URLS];
+        for (int i = 0; i < URLS; i++) {
+            final String rule = prefixes[random.nextInt(rules)];
+            urls[i] = i % 2 == 0 ? rule + "users/" + i : rule.replace("/api/", "/web/") + "index.html";
+        }
+    }
+
+    @Benchmark
+    public int linearStartsWith() {
+        int matches = 0;
+        for (String url : urls) {
+            for (String prefix : prefixes) {
+                if (url.startsWith(prefix)) {
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int prefixMatcher() {
+        int matches = 0;
+        for (String url : urls) {
+            if (matcher.matchesAny(url)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,83 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.stream.Stream;
+
+/**
+ * This class compares the {@code Stream.iterate(1, e -> e + 1)} idiom of the
+ * {@link StreamsTest} with the {@link Sequences}, sequential and parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SequencesBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private static boolean isEven(final int number) {
+        return number % 2 == 0;
+    }
+
+    @Benchmark
+    public long iterate() {
+        return Stream.iterate(1, e -> e + 1)
+                .filter(SequencesBenchmark::isEven)
+                .limit(size)
+                .mapToLong(e -> e)
+                .sum();
+    }
+
+    @Benchmark
+    public long iterateParallel() {
+        return Stream.iterate(1, e -> e + 1)
+                .parallel()
+                .filter(SequencesBenchmark::isEven)
+                .limit(size)
+                .mapToLong(e -> e)
+                .sum();
+    }
+
+    @Benchmark
+    public long matching() {
+        return Sequences.matching(1, SequencesBenchmark::isEven)
+                .limit(size)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public long matchingParallel() {
+        return Sequences.matching(1, SequencesBenchmark::isEven)
+                .parallel()
+                .limit(size)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public long multiplesOf() {
+        return Sequences.multiplesOf(2, 1, 2 * size + 1)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public long multiplesOfParallel() {
+        return Sequences.multiplesOf(2, 1, 2 * size + 1)
+                .parallel()
+                .asLongStream()
+                .sum();
+    }
+}
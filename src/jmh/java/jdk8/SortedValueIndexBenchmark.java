@@ -0,0 +1,69 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * This class compares filtering all entries of a map like in
+ * {@link StreamsTest#filterMapByValueAndCreateAListOfKeys()} with a query on a {@link SortedValueIndex}.
+ * About 1% of the keys have a value above the threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SortedValueIndexBenchmark {
+
+    private static final int MAX_LEVEL = 100_000;
+    private static final int THRESHOLD = MAX_LEVEL - MAX_LEVEL / 100;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private Map<String, Integer> characterLevels;
+    private SortedValueIndex<String> index;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        characterLevels = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            characterLevels.put("Character" + i, random.nextInt(MAX_LEVEL));
+        }
+        index = SortedValueIndex.of(characterLevels);
+    }
+
+    @Benchmark
+    public List<String> filterMap() {
+        return characterLevels.entrySet()
+                .stream()
+                .filter(e -> e.getValue() > THRESHOLD)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return index.keysWithValueAbove(THRESHOLD);
+    }
+
+    @Benchmark
+    public List<String> top10() {
+        return index.top(10);
+    }
+}
@@ -0,0 +1,142 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jdk1.Person;
+
+/**
+ * This class measures the stream pipelines from {@link StreamsTest} with a growing
+ * amount of persons. Every pipeline runs sequential and parallel and, where it makes
+ * sense, as boxed {@link Stream} and as {@link IntStream}.
+ * <p>
+ * Run it with: gradlew jmh -Pinclude=StreamsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class StreamsBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        persons = Person.createPersons(size);
+    }
+
+    private Stream<Person> persons() {
+        return parallel ? persons.parallelStream() : persons.stream();
+    }
+
+    private IntStream naturals() {
+        final IntStream naturals = IntStream.iterate(1, e -> e + 1);
+        return parallel ? naturals.parallel() : naturals;
+    }
+
+    /**
+     * See {@link StreamsTest#executionOrderOfIntermediateOperations()}.
+     */
+    @Benchmark
+    public List<String> mapBeforeFilter() {
+        return persons()
+                .map(p -> p.getName().toUpperCase())
+                .filter(name -> name.endsWith("0"))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> filterBeforeMap() {
+        return persons()
+                .filter(p -> p.getName().endsWith("0"))
+                .map(p -> p.getName().toUpperCase())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * See {@link StreamsTest#groupByProperty()}.
+     */
+    @Benchmark
+    public Map<Integer, List<Person>> groupByAge() {
+        return persons()
+                .collect(Collectors.groupingBy(Person::getAge));
+    }
+
+    @Benchmark
+    public Map<Integer, List<Person>> groupByAgeInt() {
+        return persons()
+                .collect(IntGroupingCollectors.groupingByInt(Person::getAge));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countByAge() {
+        return persons()
+                .collect(Collectors.groupingBy(Person::getAge, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countByAgeInt() {
+        return persons()
+                .collect(IntGroupingCollectors.groupingByInt(Person::getAge, IntGroupingCollectors.counting()));
+    }
+
+    /**
+     * See {@link StreamsTest#aggregateAProperty()}.
+     */
+    @Benchmark
+    public Integer sumAgesBoxed() {
+        return persons()
+                .map(Person::getAge)
+                .collect(Collectors.summingInt(Integer::intValue));
+    }
+
+    @Benchmark
+    public int sumAgesPrimitive() {
+        return persons()
+                .mapToInt(Person::getAge)
+                .sum();
+    }
+
+    /**
+     * See {@link StreamsTest#executeAStreamLater()}.
+     */
+    @Benchmark
+    public long evenNumbersBoxed() {
+        final Stream<Integer> naturals = Stream.iterate(1, e -> e + 1);
+        return (parallel ? naturals.parallel() : naturals)
+                .filter(StreamsTest::isEven)
+                .limit(size)
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    @Benchmark
+    public long evenNumbersPrimitive() {
+        return naturals()
+                .filter(StreamsTest::isEven)
+                .limit(size)
+                .asLongStream()
+                .sum();
+    }
+}
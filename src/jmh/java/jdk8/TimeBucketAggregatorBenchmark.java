@@ -0,0 +1,74 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * This class measures how many events per second the {@link TimeBucketAggregator} can take
+ * with 1 to 32 writing threads. With one stripe all threads increment the same counters,
+ * the default has one stripe per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimeBucketAggregatorBenchmark {
+
+    @Param({"1", "0"})
+    private int stripes;
+
+    private TimeBucketAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        final int stripeCount = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        aggregator = new TimeBucketAggregator(ZoneId.of("Europe/Berlin"), ChronoUnit.MINUTES, 60, stripeCount);
+    }
+
+    private void ingest() {
+        aggregator.record(System.currentTimeMillis(), 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void ingest01Thread() {
+        ingest();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void ingest04Threads() {
+        ingest();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void ingest08Threads() {
+        ingest();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void ingest16Threads() {
+        ingest();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void ingest32Threads() {
+        ingest();
+    }
+}
@@ -0,0 +1,67 @@
+package jdk8;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRulesException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class compares converting an event timestamp into local fields with
+ * {@link ZoneId#of(String)} and {@link ZonedDateTime} and with the {@link ZoneCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZoneCacheBenchmark {
+
+    private static final long YEAR_2017 = 1_483_228_800_000L;
+
+    private final ZoneCache cache = new ZoneCache(2000, 2030);
+
+    @State(Scope.Thread)
+    public static class Fields {
+        final ZoneCache.LocalFields fields = new ZoneCache.LocalFields();
+    }
+
+    private static long nextEpochMillis() {
+        return YEAR_2017 + ThreadLocalRandom.current().nextLong(31_536_000_000L);
+    }
+
+    @Benchmark
+    public int zonedDateTime() {
+        final ZonedDateTime dateTime = Instant.ofEpochMilli(nextEpochMillis()).atZone(ZoneId.of("America/New_York"));
+        return dateTime.getHour();
+    }
+
+    @Benchmark
+    public int zoneCache(final Fields fields) {
+        final ZoneId zone = cache.find("America/New_York").get();
+        return cache.toLocalFields(zone, nextEpochMillis(), fields.fields).getHour();
+    }
+
+    @Benchmark
+    public boolean unknownZoneId() {
+        try {
+            return ZoneId.of("test") != null;
+        } catch (ZoneRulesException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean unknownZoneCache() {
+        return cache.find("test").isPresent();
+    }
+}
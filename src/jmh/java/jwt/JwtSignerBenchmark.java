@@ -0,0 +1,70 @@
+package jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import jdk1.Person;
+
+/**
+ * This class compares signing a token per person with java-jwt and with the {@link JwtBatchSigner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JwtSignerBenchmark {
+
+    private static final JwtBatchSigner.ClaimsWriter<Person> PERSON_CLAIMS =
+            (person, claims) -> claims.add("name", person.getName()).add("age", person.getAge());
+
+    private final byte[] secret = "secret".getBytes(StandardCharsets.UTF_8);
+    private Algorithm algorithm;
+    private JwtBatchSigner signer;
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        algorithm = Algorithm.HMAC256(secret);
+        signer = JwtBatchSigner.hmac256(secret);
+        persons = Person.createPersons(100_000);
+    }
+
+    @Benchmark
+    public void javaJwt(final Blackhole blackhole) {
+        for (Person person : persons) {
+            blackhole.consume(JWT.create()
+                    .withClaim("name", person.getName())
+                    .withClaim("age", person.getAge())
+                    .sign(algorithm));
+        }
+    }
+
+    @Benchmark
+    public void javaJwtParallel(final Blackhole blackhole) {
+        persons.parallelStream()
+                .map(person -> JWT.create()
+                        .withClaim("name", person.getName())
+                        .withClaim("age", person.getAge())
+                        .sign(algorithm))
+                .forEachOrdered(blackhole::consume);
+    }
+
+    @Benchmark
+    public long batchSigner(final Blackhole blackhole) {
+        return signer.signAll(persons, PERSON_CLAIMS, blackhole::consume);
+    }
+}
@@ -0,0 +1,55 @@
+package jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * This class compares verifying the same token with a {@link JWTVerifier} (cold) and
+ * with the {@link CachedJwtVerifier} (warm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JwtVerifierBenchmark {
+
+    private JWTVerifier verifier;
+    private CachedJwtVerifier cachedVerifier;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Algorithm algorithm = Algorithm.HMAC256("secret");
+        verifier = JWT.require(algorithm).build();
+        cachedVerifier = new CachedJwtVerifier(verifier, 1000, Duration.ofHours(1));
+        token = JWT.create()
+                .withClaim("username", "heinrich")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 3_600_000))
+                .sign(algorithm);
+    }
+
+    @Benchmark
+    public DecodedJWT cold() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT warm() {
+        return cachedVerifier.verify(token);
+    }
+}
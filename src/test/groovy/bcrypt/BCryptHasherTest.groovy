@@ -0,0 +1,136 @@
+package bcrypt
+
+import org.mindrot.jbcrypt.BCrypt
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.function.IntToLongFunction
+
+/**
+ * This class is used to test the {@link BCryptHasher}.
+ */
+class BCryptHasherTest extends Specification {
+
+    def "choose the highest cost below the target time"() {
+        given: "a machine where cost 4 takes 10ms"
+        IntToLongFunction nanosPerHash = { int cost -> TimeUnit.MILLISECONDS.toNanos(10L << (cost - 4)) }
+
+        expect:
+        BCryptHasher.calibrate(TimeUnit.MILLISECONDS.toNanos(target), 4, 30, nanosPerHash) == cost
+
+        where:
+        target | cost
+        5      | 4 // even the minimum is too slow
+        10     | 4
+        250    | 8 // 160ms
+        320    | 9
+    }
+
+    def "calibrate on this machine"() {
+        when:
+        def cost = BCryptHasher.calibrate(Duration.ofMillis(50))
+
+        then:
+        cost >= BCryptHasher.MIN_COST
+        cost <= BCryptHasher.MAX_COST
+    }
+
+    def "hash passwords asynchronously"() {
+        given:
+        def hasher = new BCryptHasher(4, 2, 10)
+
+        when:
+        def hash = hasher.hash('testpassword').get(5, TimeUnit.SECONDS)
+
+        then:
+        BCrypt.checkpw('testpassword', hash)
+        BCryptHasher.costOf(hash) == 4
+
+        cleanup:
+        hasher.close()
+    }
+
+    def "read the cost of every bcrypt version"() {
+        expect:
+        BCryptHasher.costOf(hash) == cost
+
+        where:
+        hash                                                               || cost
+        '$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy'     || 10
+        '$2y$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy'     || 12
+        '$2$05$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy'      || 5
+    }
+
+    def "reject a hash without a cost"() {
+        when:
+        BCryptHasher.costOf(hash)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        hash << ['', '$2a$', '$2$1$abc', '$1$10$abc', '$2abc$10$abc']
+    }
+
+    def "rehash a legacy \$2\$ hash on login"() {
+        given:
+        def legacyHash = BCrypt.hashpw('testpassword', BCrypt.gensalt(4).replace('$2a$', '$2$'))
+        def hasher = new BCryptHasher(5, 2, 10)
+        def newHashes = []
+
+        expect:
+        legacyHash.startsWith('$2$04$')
+        hasher.verify('testpassword', legacyHash, { newHashes << it }).get(5, TimeUnit.SECONDS)
+        BCryptHasher.costOf(newHashes[0]) == 5
+
+        cleanup:
+        hasher.close()
+    }
+
+    def "rehash passwords with a lower cost on login"() {
+        given: "a hash with cost 4 and a hasher with cost 5"
+        def oldHash = BCrypt.hashpw('testpassword', BCrypt.gensalt(4))
+        def hasher = new BCryptHasher(5, 2, 10)
+        def newHashes = []
+
+        expect: "a wrong password doesn't create a new hash"
+        !hasher.verify('wrong password', oldHash, { newHashes << it }).get(5, TimeUnit.SECONDS)
+        newHashes.isEmpty()
+
+        and: "the correct password creates a new hash with the current cost"
+        hasher.verify('testpassword', oldHash, { newHashes << it }).get(5, TimeUnit.SECONDS)
+        newHashes.size() == 1
+        BCryptHasher.costOf(newHashes[0]) == 5
+        BCrypt.checkpw('testpassword', newHashes[0])
+
+        and: "the new hash doesn't get rehashed again"
+        hasher.verify('testpassword', newHashes[0], { newHashes << it }).get(5, TimeUnit.SECONDS)
+        newHashes.size() == 1
+
+        cleanup:
+        hasher.close()
+    }
+
+    def "reject hashes when the queue is full"() {
+        given: "one thread and no space in the queue"
+        def hasher = new BCryptHasher(10, 1, 1)
+
+        when:
+        def futures = (1..3).collect { hasher.hash('testpassword') }
+
+        then:
+        futures[2].isCompletedExceptionally()
+
+        cleanup:
+        hasher.close()
+    }
+
+    def "reject invalid costs"() {
+        when:
+        new BCryptHasher(3, 1, 1)
+
+        then:
+        thrown IllegalArgumentException
+    }
+}
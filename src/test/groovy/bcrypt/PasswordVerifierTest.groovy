@@ -0,0 +1,126 @@
+package bcrypt
+
+import org.mindrot.jbcrypt.BCrypt
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.BiPredicate
+
+/**
+ * This class is used to test the caching {@link PasswordVerifier}.
+ */
+class PasswordVerifierTest extends Specification {
+
+    def hash = BCrypt.hashpw('testpassword', BCrypt.gensalt(4))
+
+    def "remember successful verifications"() {
+        given:
+        def verifier = new PasswordVerifier(2, 10, 100, Duration.ofMinutes(1))
+
+        expect: "the first check gets calculated and the second one comes from the cache"
+        verifier.verify('testpassword', hash)
+        verifier.verify('testpassword', hash)
+        verifier.cacheStats().hitCount() == 1
+        verifier.hitRate() == 0.5d
+
+        and: "wrong passwords are never cached"
+        !verifier.verify('wrong password', hash)
+        !verifier.verify('wrong password', hash)
+        verifier.cacheStats().hitCount() == 1
+
+        cleanup:
+        verifier.close()
+    }
+
+    def "share concurrent verifications of the same password"() {
+        given: "a checker that blocks until all requests are sent"
+        def release = new CountDownLatch(1)
+        def calls = new AtomicInteger()
+        BiPredicate<String, String> checker = { String password, String hash ->
+            calls.incrementAndGet()
+            release.await(5, TimeUnit.SECONDS)
+            BCrypt.checkpw(password, hash)
+        }
+        def verifier = new PasswordVerifier(4, 10, 100, Duration.ofMinutes(1), checker)
+
+        when:
+        List<CompletableFuture<Boolean>> futures = (1..10).collect { verifier.verifyAsync('testpassword', hash) }
+        release.countDown()
+
+        then:
+        futures.every { it.get(5, TimeUnit.SECONDS) }
+        calls.get() == 1
+
+        cleanup:
+        verifier.close()
+    }
+
+    def "complete the check when the checker throws an error"() {
+        given: "a checker that overflows its stack once"
+        def calls = new AtomicInteger()
+        BiPredicate<String, String> checker = { String password, String hash ->
+            if (calls.incrementAndGet() == 1) {
+                throw new StackOverflowError()
+            }
+            BCrypt.checkpw(password, hash)
+        }
+        def verifier = new PasswordVerifier(1, 10, 100, Duration.ofMinutes(1), checker)
+
+        when:
+        verifier.verifyAsync('testpassword', hash).get(5, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException ex = thrown()
+        ex.cause instanceof StackOverflowError
+
+        and: "the failed check is not in flight anymore"
+        verifier.verifyAsync('testpassword', hash).get(5, TimeUnit.SECONDS)
+        calls.get() == 2
+
+        cleanup:
+        verifier.close()
+    }
+
+    def "reject verifications when the queue is full"() {
+        given: "one thread that blocks and a queue for one more check"
+        def release = new CountDownLatch(1)
+        BiPredicate<String, String> checker = { String password, String hash ->
+            release.await(5, TimeUnit.SECONDS)
+            true
+        }
+        def verifier = new PasswordVerifier(1, 1, 100, Duration.ofMinutes(1), checker)
+
+        when:
+        def running = verifier.verifyAsync('first', hash)
+        Thread.sleep(50) // let the thread take the first check
+        def queued = verifier.verifyAsync('second', hash)
+        def rejected = verifier.verifyAsync('third', hash)
+
+        then:
+        verifier.queueDepth() == 1
+        rejected.isCompletedExceptionally()
+
+        when:
+        rejected.get()
+
+        then:
+        ExecutionException ex = thrown()
+        ex.cause instanceof RejectedExecutionException
+
+        when:
+        release.countDown()
+
+        then:
+        running.get(5, TimeUnit.SECONDS)
+        queued.get(5, TimeUnit.SECONDS)
+
+        cleanup:
+        verifier.close()
+    }
+}
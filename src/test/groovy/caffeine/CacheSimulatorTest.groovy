@@ -0,0 +1,154 @@
+package caffeine
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.Weigher
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.stream.LongStream
+
+/**
+ * This class is used to test the {@link CacheSimulator}.
+ */
+class CacheSimulatorTest extends Specification {
+
+    def "count the hits of the LRU and LFU baselines"() {
+        given:
+        def simulator = new CacheSimulator()
+                .addLru("lru", 2)
+                .addLfu("lfu", 2)
+
+        when: "the LRU evicts 1, 2 and 3, the LFU keeps the frequent 1 and evicts 2 and 3"
+        def results = simulator.replay(LongStream.of(1, 1, 2, 3, 1, 2))
+
+        then:
+        results[0].name == "lru"
+        results[0].hits == 1
+        results[0].misses == 5
+        results[0].evictions == 3
+        results[1].name == "lfu"
+        results[1].hits == 2
+        results[1].misses == 4
+        results[1].evictions == 2
+    }
+
+    def "a cache that is big enough only misses the first access of every key"() {
+        when:
+        def results = new CacheSimulator()
+                .addCaffeine("caffeine", Caffeine.newBuilder().maximumSize(1_000))
+                .addLru("lru", 1_000)
+                .addLfu("lfu", 1_000)
+                .replay(LongStream.range(0, 10_000).map { it % 500 })
+
+        then:
+        results.every { it.misses == 500 && it.hits == 9_500 && it.evictions == 0 }
+        results[0].hitRatio == 0.95d
+    }
+
+    def "a builder that already records stats can't be added"() {
+        when:
+        new CacheSimulator().addCaffeine("caffeine", Caffeine.newBuilder().recordStats())
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "the baselines don't accept a null value"() {
+        when:
+        new CacheSimulator(CacheSimulator.DEFAULT_TICK, { long key -> null })
+                .addLru("lru", 10)
+                .replay(LongStream.of(1L))
+
+        then:
+        thrown(NullPointerException)
+    }
+
+    def "expire entries in the simulated time"() {
+        when: "the same key every millisecond"
+        def results = new CacheSimulator()
+                .addCaffeine("write", Caffeine.newBuilder().expireAfterWrite(10, TimeUnit.MILLISECONDS))
+                .addCaffeine("access", Caffeine.newBuilder().expireAfterAccess(10, TimeUnit.MILLISECONDS))
+                .replay(LongStream.generate { 1L }.limit(1_000))
+
+        then: "expire after write loads it every 10 ms, expire after access never again"
+        results[0].misses == 100
+        results[1].misses == 1
+    }
+
+    def "refresh entries without a miss"() {
+        given:
+        def loads = 0
+        def simulator = new CacheSimulator(Duration.ofMillis(1), { key -> loads++; key })
+
+        when:
+        def results = simulator
+                .addCaffeine("refresh", Caffeine.newBuilder().refreshAfterWrite(10, TimeUnit.MILLISECONDS))
+                .replay(LongStream.generate { 1L }.limit(1_000))
+
+        then:
+        results[0].misses == 1
+        loads > 50
+    }
+
+    def "evict heavy entries with a weigher"() {
+        given: "every key weighs as much as its value"
+        def weigher = { Long key, Object value -> key.intValue() } as Weigher<Object, Object>
+
+        when:
+        def results = new CacheSimulator()
+                .addCaffeine("weighted", Caffeine.newBuilder().maximumWeight(100).weigher(weigher))
+                .replay(LongStream.range(0, 1_000).map { it % 2 == 0 ? 1L : 200L })
+
+        then: "the key with weight 200 never fits"
+        results[0].misses == 501
+        results[0].hits == 499
+    }
+
+    def "read text and binary traces lazily"() {
+        given:
+        def text = Files.createTempFile("trace", ".txt")
+        def binary = Files.createTempFile("trace", ".bin")
+        text.toFile().text = "1\n2\n\n -3 \n/index.html\n/index.html\n1234567890123456789012\n"
+
+        when:
+        def keys = CacheSimulator.readText(text).toArray()
+
+        then: "numbers are used directly, all other lines are hashed"
+        keys.length == 6
+        keys[0..2] == [1L, 2L, -3L]
+        keys[3] == keys[4]
+        keys[3] != keys[5]
+
+        when:
+        def written = CacheSimulator.writeBinary(CacheSimulator.readText(text), binary)
+
+        then:
+        written == 6
+        Files.size(binary) == 6 * 8
+        CacheSimulator.readBinary(binary).toArray() == keys
+
+        cleanup:
+        Files.deleteIfExists(text)
+        Files.deleteIfExists(binary)
+    }
+
+    def "replay a big trace file in a stream"() {
+        given:
+        def binary = Files.createTempFile("trace", ".bin")
+        CacheSimulator.writeBinary(LongStream.range(0, 2_000_000).map { it % 1_000 }, binary)
+
+        when:
+        def results = new CacheSimulator()
+                .addLru("lru", 100)
+                .replay(CacheSimulator.readBinary(binary))
+
+        then: "a loop over more keys than fit is the worst case for an LRU"
+        results[0].requests == 2_000_000
+        results[0].hits == 0
+
+        cleanup:
+        Files.deleteIfExists(binary)
+    }
+}
@@ -0,0 +1,193 @@
+package caffeine
+
+import com.github.benmanes.caffeine.cache.Ticker
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+/**
+ * This class is used to test the {@link Memoize}.
+ */
+class MemoizeTest extends Specification {
+
+    /**
+     * Runs the cache maintenance directly, so evictions can be checked right away.
+     */
+    final Executor sameThread = { Runnable runnable -> runnable.run() } as Executor
+
+    final AtomicInteger calls = new AtomicInteger()
+
+    def "compute a result only once per key"() {
+        given: "the mapping of OptionalTest.testFilterAndMapOnOptional"
+        def upperCase = Memoize.function({ String value -> calls.incrementAndGet(); value.toUpperCase() } as Function,
+                Memoize.Spec.maximumSize(100))
+
+        when:
+        def first = upperCase.apply("hello")
+        def second = upperCase.apply("hello")
+        def other = upperCase.apply("world")
+
+        then:
+        first == "HELLO"
+        second.is(first)
+        other == "WORLD"
+        calls.get() == 2
+        upperCase.stats().hitCount() == 1
+        upperCase.stats().missCount() == 2
+        upperCase.stats().loadSuccessCount() == 2
+        upperCase.stats().totalLoadTime() > 0
+    }
+
+    def "compute a result only once for concurrent calls"() {
+        given: "a function that blocks until it gets released"
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def slow = Memoize.function({ Integer value ->
+            calls.incrementAndGet()
+            started.countDown()
+            release.await()
+            value * 2
+        } as Function, Memoize.Spec.maximumSize(100))
+        def pool = Executors.newFixedThreadPool(8)
+
+        when: "8 threads ask for the same key"
+        def results = (1..8).collect { pool.submit({ slow.apply(21) } as Callable) }
+        started.await()
+        Thread.sleep(100)
+        release.countDown()
+
+        then:
+        results.collect { it.get(5, TimeUnit.SECONDS) } == [42] * 8
+        calls.get() == 1
+        slow.stats().loadSuccessCount() == 1
+
+        cleanup:
+        pool.shutdownNow()
+    }
+
+    def "memoize a bi function"() {
+        given:
+        def repeat = Memoize.biFunction({ String text, Integer times -> calls.incrementAndGet(); (text ?: "-") * times },
+                Memoize.Spec.maximumSize(100))
+
+        expect:
+        repeat.apply("ab", 2) == "abab"
+        repeat.apply("ab", 2) == "abab"
+        repeat.apply("ab", 3) == "ababab"
+        repeat.apply(null, 2) == "--"
+        calls.get() == 3
+        repeat.stats().hitCount() == 1
+    }
+
+    def "compute a supplier again after its time to live"() {
+        given: "a ticker we can move forward"
+        long nanos = 0
+        def ticker = { nanos } as Ticker
+        def supplier = Memoize.supplier({ calls.incrementAndGet() },
+                Memoize.Spec.maximumSize(1).expireAfterWrite(Duration.ofMinutes(1)).ticker(ticker).executor(sameThread))
+
+        expect:
+        supplier.get() == 1
+        supplier.get() == 1
+
+        when:
+        nanos += Duration.ofMinutes(2).toNanos()
+
+        then:
+        supplier.get() == 2
+        supplier.stats().missCount() == 2
+    }
+
+    def "evict results when the maximum size is reached"() {
+        given:
+        def identity = Memoize.function({ it } as Function, Memoize.Spec.maximumSize(10).executor(sameThread))
+
+        when:
+        (1..100).each { identity.apply(it) }
+
+        then:
+        identity.stats().evictionCount() >= 90
+    }
+
+    def "never cache exceptions"() {
+        given:
+        def failing = Memoize.function({ String value ->
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("first call fails")
+            }
+            value
+        } as Function, Memoize.Spec.maximumSize(100))
+
+        when:
+        failing.apply("hello")
+
+        then:
+        thrown IllegalStateException
+
+        expect: "the next call computes the result again"
+        failing.apply("hello") == "hello"
+        failing.stats().loadFailureCount() == 1
+    }
+
+    def "share the future of an async computation"() {
+        given: "an executor that runs the computation when we want"
+        def tasks = []
+        def executor = { Runnable runnable -> tasks << runnable } as Executor
+        def async = Memoize.asyncFunction({ String value -> calls.incrementAndGet(); value.length() } as Function,
+                Memoize.Spec.maximumSize(100).executor(executor))
+
+        when:
+        CompletableFuture<Integer> first = async.apply("hello")
+        CompletableFuture<Integer> second = async.apply("hello")
+
+        then:
+        second.is(first)
+        !first.isDone()
+
+        when:
+        tasks.each { it.run() }
+
+        then:
+        first.get() == 5
+        async.apply("hello").get() == 5
+        calls.get() == 1
+        async.stats().hitCount() == 2
+    }
+
+    def "memoize an async supplier"() {
+        given:
+        def supplier = Memoize.asyncSupplier({ calls.incrementAndGet() }, Duration.ofMinutes(1))
+
+        expect:
+        supplier.get().get() == 1
+        supplier.get().get() == 1
+
+        when:
+        supplier.invalidateAll()
+
+        then:
+        supplier.get().get() == 2
+    }
+
+    def "reject invalid specs"() {
+        when:
+        Memoize.Spec.maximumSize(-1)
+
+        then:
+        thrown IllegalArgumentException
+
+        when:
+        Memoize.Spec.maximumSize(1).expireAfterWrite(Duration.ZERO)
+
+        then:
+        thrown IllegalArgumentException
+    }
+}
@@ -0,0 +1,77 @@
+package caffeine
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import spock.lang.Specification
+
+import java.util.stream.LongStream
+
+/**
+ * This class is used to test the {@link SizingAdvisor}.
+ */
+class SizingAdvisorTest extends Specification {
+
+    /**
+     * 200.000 accesses where a few keys are used very often, mixed with scans over keys
+     * that are used only once.
+     */
+    LongStream skewedTraceWithScans() {
+        def random = new Random(42)
+        LongStream.range(0, 200_000).map { i ->
+            i.intdiv(1_000) % 10 == 9 ? 1_000_000 + i : (long) (Math.pow(random.nextDouble(), 4) * 10_000)
+        }
+    }
+
+    def "create hit ratio curves"() {
+        given:
+        def advisor = new SizingAdvisor({ size -> Caffeine.newBuilder().maximumSize(size) }, 1_000, 10, 100)
+
+        when:
+        def curves = advisor.analyze(skewedTraceWithScans())
+
+        then: "the sizes are sorted and a bigger cache has more hits"
+        [SizingAdvisor.CAFFEINE, SizingAdvisor.LRU, SizingAdvisor.LFU].every { policy ->
+            def curve = curves.curve(policy)
+            curve*.size == [10L, 100L, 1_000L] && curve[0].hitRatio < curve[1].hitRatio && curve[1].hitRatio < curve[2].hitRatio
+        }
+
+        and: "caffeine keeps the frequent keys during the scans"
+        (0..2).every { curves.curve(SizingAdvisor.CAFFEINE)[it].hitRatio >= curves.curve(SizingAdvisor.LRU)[it].hitRatio }
+
+        and:
+        curves.toString().readLines().size() == 4
+    }
+
+    def "find the smallest size for a hit ratio"() {
+        given:
+        def advisor = new SizingAdvisor({ size -> Caffeine.newBuilder().maximumSize(size) }, 10, 100, 1_000, 10_000)
+        def curves = advisor.analyze(skewedTraceWithScans())
+
+        expect:
+        curves.smallestSizeFor(SizingAdvisor.CAFFEINE, 0.4).asLong == 1_000
+        curves.smallestSizeFor(SizingAdvisor.CAFFEINE, 0.8).asLong == 10_000
+
+        and: "every tenth access is part of a scan, so no size gets 95%"
+        curves.smallestSizeFor(SizingAdvisor.CAFFEINE, 0.95) == OptionalLong.empty()
+    }
+
+    def "estimate the heap of an entry"() {
+        when:
+        def bytes = SizingAdvisor.heapBytesPerEntry(Caffeine.newBuilder().maximumSize(1_000_000), 200_000)
+
+        then: "at least the Long key and the node of the cache"
+        bytes >= 16
+        bytes < 1_000
+    }
+
+    def "reject unknown policies"() {
+        given:
+        def curves = new SizingAdvisor({ size -> Caffeine.newBuilder().maximumSize(size) }, 10)
+                .analyze(LongStream.of(1, 2, 3))
+
+        when:
+        curves.curve("fifo")
+
+        then:
+        thrown IllegalArgumentException
+    }
+}
@@ -0,0 +1,70 @@
+package guava
+
+import com.google.common.hash.Funnels
+import spock.lang.Specification
+
+import java.util.stream.Collectors
+import java.util.stream.LongStream
+
+/**
+ * This class is used to test the {@link ApproximateDistinct}.
+ * <p>
+ * A bloom filter never lets a duplicate through, but drops a new element with at most its
+ * false positive probability. The filter only reaches this probability when it holds the
+ * expected number of elements, so fewer elements get dropped on the way there.
+ */
+class ApproximateDistinctTest extends Specification {
+
+    def "remove duplicates like in StreamsTest.useCollectorToTransformToListMapSet"() {
+        given:
+        def names = ["Max", "Peter", "Pamela", "David", "Peter", "Max"]
+
+        when:
+        def distinct = ApproximateDistinct.distinct(names.stream(), Funnels.unencodedCharsFunnel(), 100, 0.01)
+                .collect(Collectors.toList())
+
+        then:
+        distinct == ["Max", "Peter", "Pamela", "David"]
+    }
+
+    def "drop at most the false positive probability of the new elements"() {
+        given: "100.000 numbers, every number 3 times"
+        def count = 100_000
+        def fpp = 0.01
+
+        when:
+        def distinct = ApproximateDistinct.distinct(LongStream.range(0, 3 * count).map { it % count }.boxed(),
+                Funnels.longFunnel(), count, fpp)
+                .collect(Collectors.toList())
+
+        then: "no duplicates"
+        distinct.toSet().size() == distinct.size()
+
+        and: "less than 1% dropped"
+        distinct.size() >= count * (1 - fpp)
+        distinct.size() <= count
+    }
+
+    def "remove duplicates of a parallel stream"() {
+        given:
+        def count = 100_000
+
+        when:
+        def distinct = ApproximateDistinct.distinct(LongStream.range(0, 2 * count).parallel().map { it % count }.boxed(),
+                Funnels.longFunnel(), count, 0.001)
+                .collect(Collectors.toList())
+
+        then:
+        distinct.toSet().size() == distinct.size()
+        distinct.size() >= count * (1 - 0.001)
+    }
+
+    def "count distinct elements"() {
+        when:
+        def estimate = LongStream.range(0, 2_000_000).map { it % 1_000_000 }.boxed()
+                .collect(ApproximateDistinct.countDistinct(Funnels.longFunnel()))
+
+        then: "the default precision has a standard error of 0.81%"
+        Math.abs(estimate - 1_000_000) <= 3 * 0.0081 * 1_000_000
+    }
+}
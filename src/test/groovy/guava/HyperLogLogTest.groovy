@@ -0,0 +1,119 @@
+package guava
+
+import com.google.common.hash.Funnels
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.stream.LongStream
+
+/**
+ * This class is used to test the {@link HyperLogLog}.
+ * <p>
+ * The error of an estimate is checked against 3 standard errors, 99.7% of all estimates
+ * are within this bound.
+ */
+class HyperLogLogTest extends Specification {
+
+    @Unroll
+    def "estimate #count distinct elements with precision #precision"() {
+        when:
+        def sketch = LongStream.range(0, count).boxed()
+                .collect(ApproximateDistinct.toHyperLogLog(Funnels.longFunnel(), precision))
+
+        then:
+        Math.abs(sketch.estimate() - count) <= 3 * sketch.standardError() * count
+
+        where:
+        count     | precision
+        0         | 14
+        10        | 14
+        1_000     | 14
+        100_000   | 14
+        1_000_000 | 14
+        100_000   | 10
+        1_000_000 | 18
+    }
+
+    @Unroll
+    def "estimate #count distinct primitive longs"() {
+        when:
+        def estimate = ApproximateDistinct.countDistinct(LongStream.range(0, 2 * count).map { it % count }.parallel())
+
+        then:
+        Math.abs(estimate - count) <= 3 * new HyperLogLog().standardError() * count
+
+        where:
+        count << [1_000, 100_000, 1_000_000]
+    }
+
+    def "small counts are nearly exact"() {
+        when:
+        def estimate = LongStream.range(0, 1_000).boxed()
+                .collect(ApproximateDistinct.countDistinct(Funnels.longFunnel()))
+
+        then: "linear counting is used below 2.5 times the number of registers"
+        Math.abs(estimate - 1_000) <= 5
+    }
+
+    def "duplicates don't change the estimate"() {
+        when:
+        def once = LongStream.range(0, 50_000).boxed()
+                .collect(ApproximateDistinct.countDistinct(Funnels.longFunnel()))
+        def tenTimes = LongStream.range(0, 500_000).map { it % 50_000 }.boxed()
+                .collect(ApproximateDistinct.countDistinct(Funnels.longFunnel()))
+
+        then:
+        tenTimes == once
+    }
+
+    def "merge the sketches of parallel parts"() {
+        given:
+        def funnel = Funnels.longFunnel()
+
+        when: "two overlapping ranges get counted separately"
+        def first = LongStream.range(0, 600_000).boxed().collect(ApproximateDistinct.toHyperLogLog(funnel, 14))
+        def second = LongStream.range(400_000, 1_000_000).boxed().collect(ApproximateDistinct.toHyperLogLog(funnel, 14))
+        def parallel = LongStream.range(0, 1_000_000).parallel().boxed()
+                .collect(ApproximateDistinct.toHyperLogLog(funnel, 14))
+
+        then:
+        first.merge(second).estimate() == parallel.estimate()
+        Math.abs(parallel.estimate() - 1_000_000) <= 3 * parallel.standardError() * 1_000_000
+    }
+
+    def "serialize a sketch"() {
+        given:
+        def sketch = ["Max", "Peter", "Pamela", "David"].stream()
+                .collect(ApproximateDistinct.toHyperLogLog(Funnels.unencodedCharsFunnel(), 12))
+
+        when:
+        def bytes = sketch.toBytes()
+        def copy = HyperLogLog.fromBytes(bytes)
+
+        then: "a version, the precision and 4096 registers"
+        bytes.length == 2 + 4096
+        copy.precision == 12
+        copy.estimate() == 4
+        copy.toBytes() == bytes
+    }
+
+    def "reject invalid sketches"() {
+        when:
+        new HyperLogLog(19)
+
+        then:
+        thrown IllegalArgumentException
+
+        when:
+        new HyperLogLog(10).merge(new HyperLogLog(11))
+
+        then:
+        thrown IllegalArgumentException
+
+        when:
+        HyperLogLog.fromBytes([1, 4, 0] as byte[])
+
+        then:
+        thrown IllegalArgumentException
+    }
+}
@@ -0,0 +1,75 @@
+package jwt
+
+import com.auth0.jwt.JWT
+import com.auth0.jwt.algorithms.Algorithm
+import com.auth0.jwt.exceptions.SignatureVerificationException
+import com.auth0.jwt.exceptions.TokenExpiredException
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.LongSupplier
+
+/**
+ * This class is used to test the {@link CachedJwtVerifier}.
+ */
+class CachedJwtVerifierTest extends Specification {
+
+    final Algorithm algorithm = Algorithm.HMAC256("secret")
+
+    def "verify a token only once"() {
+        given:
+        def verifier = CachedJwtVerifier.of(algorithm, 100, Duration.ofMinutes(5))
+        String token = JWT.create()
+                .withClaim("username", "heinrich")
+                .sign(algorithm)
+
+        when:
+        def first = verifier.verify(token)
+        def second = verifier.verify(token)
+
+        then: "the second call returns the cached token"
+        first.getClaim("username").asString() == "heinrich"
+        second.is(first)
+        verifier.stats().hitCount() == 1
+    }
+
+    def "never cache invalid tokens"() {
+        given:
+        def verifier = CachedJwtVerifier.of(algorithm, 100, Duration.ofMinutes(5))
+        String token = JWT.create().sign(Algorithm.HMAC256("daw"))
+
+        when:
+        verifier.verify(token)
+
+        then:
+        thrown SignatureVerificationException
+
+        when: "verifying the token again"
+        verifier.verify(token)
+
+        then: "it fails again"
+        thrown SignatureVerificationException
+        verifier.stats().hitCount() == 0
+    }
+
+    def "reject cached tokens when they expire"() {
+        given: "a clock we can move forward"
+        def now = System.currentTimeMillis()
+        LongSupplier clock = { now }
+        def verifier = new CachedJwtVerifier(JWT.require(algorithm).build(), 100, Duration.ofMinutes(5), clock)
+        String token = JWT.create()
+                .withExpiresAt(new Date(now + 60_000))
+                .sign(algorithm)
+
+        expect:
+        verifier.verify(token)
+
+        when: "the token expired"
+        now += 120_000
+        verifier.verify(token)
+
+        then: "the cached token gets rejected"
+        thrown TokenExpiredException
+        verifier.stats().hitCount() == 1
+    }
+}
@@ -0,0 +1,76 @@
+package jwt
+
+import com.auth0.jwt.JWT
+import com.auth0.jwt.algorithms.Algorithm
+import jdk1.Person
+import spock.lang.Specification
+
+/**
+ * This class is used to test the {@link JwtBatchSigner}.
+ */
+class JwtBatchSignerTest extends Specification {
+
+    final byte[] secret = "secret".getBytes("UTF-8")
+
+    final JwtBatchSigner.ClaimsWriter<Person> personClaims = { Person person, JwtBatchSigner.Claims claims ->
+        claims.add("name", person.getName()).add("age", person.getAge())
+    }
+
+    def "sign tokens that java jwt can verify"() {
+        given:
+        def signer = JwtBatchSigner.hmac256(secret)
+        def verifier = JWT.require(Algorithm.HMAC256(secret)).build()
+
+        when:
+        def token = signer.sign(new Person(name, 23), personClaims)
+        def decoded = verifier.verify(token)
+
+        then:
+        decoded.getAlgorithm() == "HS256"
+        decoded.getClaim("name").asString() == name
+        decoded.getClaim("age").asInt() == 23
+
+        where:
+        name << ["Peter", "Pam \"Pamela\" \\ Tab\t", "Jürgen 日本"]
+    }
+
+    def "produce the same token as java jwt"() {
+        given:
+        def token = JWT.create()
+                .withClaim("name", "Max")
+                .sign(Algorithm.HMAC512(secret))
+
+        expect:
+        JwtBatchSigner.hmac512(secret).sign("Max", { String name, claims -> claims.add("name", name) }) == token
+    }
+
+    def "replace a lone surrogate instead of signing a truncated payload"() {
+        given:
+        def verifier = JWT.require(Algorithm.HMAC256(secret)).build()
+
+        when:
+        def token = JwtBatchSigner.hmac256(secret).sign(new Person("\uD800", 23), personClaims)
+        def decoded = verifier.verify(token)
+
+        then: "the same bytes as String.getBytes"
+        decoded.getClaim("name").asString() == new String("\uD800".getBytes("UTF-8"), "UTF-8")
+        decoded.getClaim("age").asInt() == 23
+    }
+
+    def "sign a batch in order without collecting it"() {
+        given: "more persons than fit into one chunk"
+        def persons = Person.createPersons(JwtBatchSigner.CHUNK_SIZE * 2 + 10)
+        def signer = JwtBatchSigner.hmac384(secret)
+        def verifier = JWT.require(Algorithm.HMAC384(secret)).build()
+        def names = []
+
+        when:
+        def count = signer.signAll(persons, personClaims, { String token ->
+            names << verifier.verify(token).getClaim("name").asString()
+        })
+
+        then:
+        count == persons.size()
+        names == persons*.name
+    }
+}
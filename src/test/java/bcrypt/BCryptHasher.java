@@ -0,0 +1,156 @@
+package bcrypt;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * This class hashes passwords with bcrypt on an own thread pool.
+ * <p>
+ * The number of log rounds (the cost) gets chosen by {@link #calibrate(Duration)}: the
+ * highest cost where one hash on this machine still takes less than the target time.
+ * Every additional round doubles the time.
+ * <p>
+ * The pool has one thread per core and a bounded queue. If the queue is full the returned
+ * future fails with a {@link java.util.concurrent.RejectedExecutionException}, so callers
+ * notice the overload instead of waiting longer and longer.
+ */
+public class BCryptHasher implements AutoCloseable {
+
+    static final int MIN_COST = 4;
+    static final int MAX_COST = 30;
+
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    public BCryptHasher(final int cost, final int queueCapacity) {
+        this(cost, Runtime.getRuntime().availableProcessors(), queueCapacity);
+    }
+
+    public BCryptHasher(final int cost, final int threads, final int queueCapacity) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("Cost must be between " + MIN_COST + " and " + MAX_COST + ": " + cost);
+        }
+        this.cost = cost;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    /**
+     * Creates a hasher with the cost returned by {@link #calibrate(Duration)}.
+     *
+     * @param targetTime    the maximum time one hash may take
+     * @param queueCapacity the number of hashes that can wait for a thread
+     * @return the calibrated hasher
+     */
+    public static BCryptHasher calibrated(final Duration targetTime, final int queueCapacity) {
+        return new BCryptHasher(calibrate(targetTime), queueCapacity);
+    }
+
+    /**
+     * Measures how long a hash takes on this machine and returns the highest cost that
+     * stays below the target time, e.g. 250ms. Returns the minimum cost if even this is
+     * too slow.
+     *
+     * @param targetTime the maximum time one hash may take
+     * @return the number of log rounds
+     */
+    public static int calibrate(final Duration targetTime) {
+        // the first hashes warm up the jit, so every cost gets measured twice
+        return calibrate(targetTime.toNanos(), MIN_COST, MAX_COST, cost -> Math.min(measure(cost), measure(cost)));
+    }
+
+    static int calibrate(final long targetNanos, final int minCost, final int maxCost, final IntToLongFunction nanosPerHash) {
+        int best = minCost;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            final long nanos = nanosPerHash.applyAsLong(cost);
+            if (nanos > targetNanos) {
+                break;
+            }
+            best = cost;
+            if (nanos * 2 > targetNanos) {
+                // the next cost takes twice as long, no need to measure it
+                break;
+            }
+        }
+        return best;
+    }
+
+    private static long measure(final int cost) {
+        final long start = System.nanoTime();
+        BCrypt.hashpw("calibration", BCrypt.gensalt(cost));
+        return System.nanoTime() - start;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public CompletableFuture<String> hash(final String password) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Checks the password and creates a new hash if the given hash was created with a
+     * lower cost than the current one. This way old hashes get stronger with every login.
+     *
+     * @param password the plain password
+     * @param hash     the stored hash
+     * @param rehashed gets called with the new hash to store instead of the old one
+     * @return a future with true if the password matches the hash
+     */
+    public CompletableFuture<Boolean> verify(final String password, final String hash, final Consumer<String> rehashed) {
+        return submit(() -> {
+            final boolean matches = BCrypt.checkpw(password, hash);
+            if (matches && costOf(hash) < cost) {
+                rehashed.accept(BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+            }
+            return matches;
+        });
+    }
+
+    /**
+     * @return the number of hashes that wait for a thread
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Reads the cost from a hash like $2a$10$... or the legacy $2$10$...
+     *
+     * @param hash the bcrypt hash
+     * @return the number of log rounds
+     */
+    static int costOf(final String hash) {
+        final int start = hash.indexOf('$', 1) + 1;
+        if (!hash.startsWith("$2") || start < 3 || start > 4 || hash.length() < start + 3
+                || hash.charAt(start + 2) != '$'
+                || !Character.isDigit(hash.charAt(start)) || !Character.isDigit(hash.charAt(start + 1))) {
+            throw new IllegalArgumentException("Invalid bcrypt hash");
+        }
+        return Integer.parseInt(hash.substring(start, start + 2));
+    }
+
+    private <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RuntimeException e) {
+            final CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+}
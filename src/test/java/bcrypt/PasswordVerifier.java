@@ -0,0 +1,165 @@
+package bcrypt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.mindrot.jbcrypt.BCrypt;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * This class checks passwords against bcrypt hashes and remembers successful checks.
+ * <p>
+ * {@link BCrypt#checkpw(String, String)} is slow on purpose. When the same user logs in
+ * again and again, the result of a successful check gets taken from a Caffeine cache.
+ * The cache never contains the password itself but a HMAC of it with a random key that
+ * only lives in this instance. Failed checks are never cached.
+ * <p>
+ * All checks run on an own thread pool with a bounded queue, so a burst of logins can't
+ * create an unbounded amount of work. If the queue is full the returned future fails with a
+ * {@link java.util.concurrent.RejectedExecutionException}. Concurrent checks of the same
+ * password and hash share one computation.
+ */
+public class PasswordVerifier implements AutoCloseable {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final BiPredicate<String, String> checker;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Boolean> verified;
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final SecretKeySpec macKey;
+
+    /**
+     * @param threads           the number of threads that run the bcrypt checks
+     * @param queueCapacity     the number of checks that can wait for a thread
+     * @param maximumSize       the maximum number of successful checks to remember
+     * @param expireAfterWrite  how long a successful check is remembered
+     */
+    public PasswordVerifier(final int threads, final int queueCapacity, final long maximumSize, final Duration expireAfterWrite) {
+        this(threads, queueCapacity, maximumSize, expireAfterWrite, BCrypt::checkpw);
+    }
+
+    PasswordVerifier(final int threads, final int queueCapacity, final long maximumSize, final Duration expireAfterWrite,
+                     final BiPredicate<String, String> checker) {
+        this.checker = checker;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+
+        final byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.macKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Checks the password on the thread pool, or returns a completed future if the same
+     * password was already verified against this hash.
+     *
+     * @param password the plain password
+     * @param hash     the bcrypt hash
+     * @return a future with true if the password matches the hash
+     */
+    public CompletableFuture<Boolean> verifyAsync(final String password, final String hash) {
+        final String key = hash + '$' + mac(password);
+        if (verified.getIfPresent(key) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        // the result only completes after a successful check is in the cache and the check
+        // is no longer in flight, the check only runs if this result is the one in the map
+        final CompletableFuture<Boolean> check = new CompletableFuture<>();
+        final CompletableFuture<Boolean> result = check.whenComplete((matches, error) -> {
+            if (Boolean.TRUE.equals(matches)) {
+                verified.put(key, true);
+            }
+            inFlight.remove(key);
+        });
+        final CompletableFuture<Boolean> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    check.complete(checker.test(password, hash));
+                } catch (Throwable e) {
+                    // also errors, otherwise the check stays in flight forever
+                    check.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            check.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #verifyAsync(String, String)} but waits for the result.
+     *
+     * @param password the plain password
+     * @param hash     the bcrypt hash
+     * @return true if the password matches the hash
+     */
+    public boolean verify(final String password, final String hash) {
+        try {
+            return verifyAsync(password, hash).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public double hitRate() {
+        return verified.stats().hitRate();
+    }
+
+    public CacheStats cacheStats() {
+        return verified.stats();
+    }
+
+    /**
+     * @return the number of checks that wait for a thread
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private String mac(final String password) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(macKey);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
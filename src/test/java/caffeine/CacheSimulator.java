@@ -0,0 +1,467 @@
+package caffeine;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class replays a recorded trace of cache keys against Caffeine caches and simple
+ * LRU and LFU caches and counts their hits and misses.
+ * <p>
+ * A trace is a {@link LongStream} of keys, e.g. read lazily from a file with
+ * {@link #readText(Path)} (one key per line) or {@link #readBinary(Path)} (8 byte keys), so
+ * a trace of many gigabytes needs no more memory than the caches themselves. All caches
+ * see the trace in one pass.
+ * <p>
+ * The trace contains no time, so the simulated clock moves forward by a fixed tick for
+ * every access; expireAfterWrite/Access and refreshAfterWrite of a Caffeine cache are
+ * measured in this time. The Caffeine caches run their maintenance and refreshes on the
+ * replaying thread, so expiry and refresh happen at the same simulated time in every replay.
+ * The hit ratio of a size bounded Caffeine cache can still differ a little between replays
+ * of the same trace, because its frequency sketch and eviction draw from ThreadLocalRandom.
+ * The baselines only have a maximum size and always give the same result.
+ */
+public final class CacheSimulator {
+
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(1);
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final SimulatedTicker ticker;
+    private final LongFunction<Object> loader;
+    private final List<Policy> policies = new ArrayList<>();
+
+    /**
+     * Uses the {@link #DEFAULT_TICK} and loads the key itself as value.
+     */
+    public CacheSimulator() {
+        this(DEFAULT_TICK, Long::valueOf);
+    }
+
+    /**
+     * @param tick   how far the clock moves for every access
+     * @param loader creates the value of a missing key, its time is the load latency
+     */
+    public CacheSimulator(final Duration tick, final LongFunction<Object> loader) {
+        this.ticker = new SimulatedTicker(tick.toNanos());
+        this.loader = loader;
+    }
+
+    /**
+     * The simulator sets the ticker, the executor and recordStats on the builder, so a builder
+     * can only be added once.
+     *
+     * @param builder a configured builder, e.g. with maximumSize, a weigher, expiry or refresh,
+     *                but without ticker, executor and recordStats
+     * @throws IllegalStateException if the builder already has a ticker, an executor or records stats
+     */
+    public CacheSimulator addCaffeine(final String name, final Caffeine<Object, Object> builder) {
+        policies.add(new CaffeinePolicy(name, builder, ticker, loader));
+        return this;
+    }
+
+    public CacheSimulator addLru(final String name, final int maximumSize) {
+        policies.add(new LruPolicy(name, maximumSize, loader));
+        return this;
+    }
+
+    public CacheSimulator addLfu(final String name, final int maximumSize) {
+        policies.add(new LfuPolicy(name, maximumSize, loader));
+        return this;
+    }
+
+    /**
+     * Replays the trace against all caches and closes it.
+     *
+     * @return the result of every cache in the order they were added
+     */
+    public List<Result> replay(final LongStream trace) {
+        try (LongStream keys = trace) {
+            keys.sequential().forEach(key -> {
+                ticker.advance();
+                for (Policy policy : policies) {
+                    policy.record(key);
+                }
+            });
+        }
+        final List<Result> results = new ArrayList<>(policies.size());
+        for (Policy policy : policies) {
+            results.add(policy.result());
+        }
+        return results;
+    }
+
+    /**
+     * Reads one key per line, lazily. A line with a number is that key, every other line is
+     * hashed to a key. Empty lines are skipped. The stream must be closed.
+     */
+    public static LongStream readText(final Path file) {
+        try {
+            return Files.lines(file, StandardCharsets.UTF_8)
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .mapToLong(CacheSimulator::keyOf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long keyOf(final String line) {
+        final int start = line.charAt(0) == '-' ? 1 : 0;
+        boolean number = line.length() > start && line.length() - start <= 18;
+        for (int i = start; i < line.length() && number; i++) {
+            number = line.charAt(i) >= '0' && line.charAt(i) <= '9';
+        }
+        return number ? Long.parseLong(line) : HASH.hashUnencodedChars(line).asLong();
+    }
+
+    /**
+     * Reads big endian 8 byte keys, lazily. The stream must be closed.
+     */
+    public static LongStream readBinary(final Path file) {
+        final DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final PrimitiveIterator.OfLong keys = new PrimitiveIterator.OfLong() {
+
+            private boolean hasNext;
+            private long next;
+            private boolean read;
+
+            @Override
+            public boolean hasNext() {
+                if (!read) {
+                    try {
+                        next = in.readLong();
+                        hasNext = true;
+                    } catch (EOFException e) {
+                        hasNext = false;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    read = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                read = false;
+                return next;
+            }
+        };
+        final Spliterator.OfLong spliterator = Spliterators.spliteratorUnknownSize(keys, Spliterator.ORDERED);
+        return StreamSupport.longStream(spliterator, false).onClose(() -> {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the keys in the format of {@link #readBinary(Path)}, e.g. to convert a text trace once.
+     *
+     * @return the number of keys
+     */
+    public static long writeBinary(final LongStream trace, final Path file) {
+        try (LongStream keys = trace;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            final long[] count = new long[1];
+            keys.sequential().forEach(key -> {
+                try {
+                    out.writeLong(key);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The hits and misses of one cache.
+     */
+    public static final class Result {
+
+        private final String name;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final double averageLoadPenalty;
+
+        Result(final String name, final long hits, final long misses, final long evictions, final double averageLoadPenalty) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.averageLoadPenalty = averageLoadPenalty;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getRequests() {
+            return hits + misses;
+        }
+
+        public double getHitRatio() {
+            return getRequests() == 0 ? 1.0 : (double) hits / getRequests();
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the average time of a load in nanoseconds
+         */
+        public double getAverageLoadPenalty() {
+            return averageLoadPenalty;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: hit ratio %.4f, %d requests, %d evictions, %.0f ns per load",
+                    name, getHitRatio(), getRequests(), evictions, averageLoadPenalty);
+        }
+    }
+
+    /**
+     * A cache that gets every key of the trace.
+     */
+    private interface Policy {
+
+        void record(long key);
+
+        Result result();
+    }
+
+    private static final class SimulatedTicker implements Ticker {
+
+        private final long tickNanos;
+        private long nanos;
+
+        private SimulatedTicker(final long tickNanos) {
+            this.tickNanos = tickNanos;
+        }
+
+        private void advance() {
+            nanos += tickNanos;
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+
+    private static final class CaffeinePolicy implements Policy {
+
+        private final String name;
+        private final LoadingCache<Long, Object> cache;
+
+        private CaffeinePolicy(final String name, final Caffeine<Object, Object> builder, final Ticker ticker,
+                               final LongFunction<Object> loader) {
+            this.name = name;
+            this.cache = builder
+                    .ticker(ticker)
+                    .executor(Runnable::run)
+                    .recordStats()
+                    .build(loader::apply);
+        }
+
+        @Override
+        public void record(final long key) {
+            cache.get(key);
+        }
+
+        @Override
+        public Result result() {
+            final CacheStats stats = cache.stats();
+            return new Result(name, stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.averageLoadPenalty());
+        }
+    }
+
+    /**
+     * Counts the misses and the time of the loads of a baseline.
+     */
+    private abstract static class BaselinePolicy implements Policy {
+
+        private final String name;
+        private final LongFunction<Object> loader;
+        final int maximumSize;
+        long hits;
+        long misses;
+        long evictions;
+        private long loadNanos;
+
+        BaselinePolicy(final String name, final int maximumSize, final LongFunction<Object> loader) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("The maximum size must be positive: " + maximumSize);
+            }
+            this.name = name;
+            this.maximumSize = maximumSize;
+            this.loader = loader;
+        }
+
+        Object load(final long key) {
+            misses++;
+            final long start = System.nanoTime();
+            // a baseline can't cache null, Caffeine wouldn't cache it either
+            final Object value = Objects.requireNonNull(loader.apply(key), "The loader returned null");
+            loadNanos += System.nanoTime() - start;
+            return value;
+        }
+
+        @Override
+        public Result result() {
+            return new Result(name, hits, misses, evictions, misses == 0 ? 0 : (double) loadNanos / misses);
+        }
+    }
+
+    /**
+     * Evicts the key that was used least recently.
+     */
+    private static final class LruPolicy extends BaselinePolicy {
+
+        private final Map<Long, Object> cache;
+
+        private LruPolicy(final String name, final int maximumSize, final LongFunction<Object> loader) {
+            super(name, maximumSize, loader);
+            this.cache = new LruMap(this);
+        }
+
+        @Override
+        public void record(final long key) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, load(key));
+            }
+        }
+    }
+
+    /**
+     * A map in access order that evicts its eldest entry above the maximum size of the policy.
+     */
+    private static final class LruMap extends LinkedHashMap<Long, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient LruPolicy policy;
+
+        private LruMap(final LruPolicy policy) {
+            super(16, 0.75f, true);
+            this.policy = policy;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, Object> eldest) {
+            if (size() > policy.maximumSize) {
+                policy.evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Evicts the key that was used least frequently, the least recently used one of them.
+     */
+    private static final class LfuPolicy extends BaselinePolicy {
+
+        private final Map<Long, Integer> frequencies = new HashMap<>();
+        private final Map<Integer, LinkedHashSet<Long>> keysByFrequency = new HashMap<>();
+        private int minFrequency;
+
+        private LfuPolicy(final String name, final int maximumSize, final LongFunction<Object> loader) {
+            super(name, maximumSize, loader);
+        }
+
+        @Override
+        public void record(final long key) {
+            final Integer frequency = frequencies.get(key);
+            if (frequency != null) {
+                hits++;
+                final LinkedHashSet<Long> keys = keysByFrequency.get(frequency);
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByFrequency.remove(frequency);
+                    if (minFrequency == frequency) {
+                        minFrequency++;
+                    }
+                }
+                add(key, frequency + 1);
+                return;
+            }
+            // the value isn't needed to count hits, only the time of the load
+            load(key);
+            if (frequencies.size() == maximumSize) {
+                final LinkedHashSet<Long> leastFrequent = keysByFrequency.get(minFrequency);
+                final Long evicted = leastFrequent.iterator().next();
+                leastFrequent.remove(evicted);
+                if (leastFrequent.isEmpty()) {
+                    keysByFrequency.remove(minFrequency);
+                }
+                frequencies.remove(evicted);
+                evictions++;
+            }
+            add(key, 1);
+            minFrequency = 1;
+        }
+
+        private void add(final long key, final int frequency) {
+            frequencies.put(key, frequency);
+            keysByFrequency.computeIfAbsent(frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+    }
+}
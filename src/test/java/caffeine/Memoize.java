@@ -0,0 +1,321 @@
+package caffeine;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * This class wraps pure functions and suppliers in a Caffeine cache, so a result is only
+ * computed again when it was evicted or expired.
+ * <p>
+ * If many threads ask for the same key at the same time, only one of them computes the
+ * result and the others wait for it. The async variants return a {@link CompletableFuture}
+ * that is shared by all callers of a key and compute the result on the executor of the
+ * {@link Spec}.
+ * <p>
+ * Keys must not be null. Exceptions are not cached, the next call computes the result
+ * again. A null result is not cached either. The functions must not call their memoized
+ * version, because a computation blocks other computations of the same cache.
+ */
+public final class Memoize {
+
+    private static final Object SUPPLIER_KEY = new Object();
+
+    private Memoize() {
+    }
+
+    public static <K, V> MemoizedFunction<K, V> function(final Function<? super K, ? extends V> function, final Spec spec) {
+        Objects.requireNonNull(function);
+        return new MemoizedFunction<>(spec.newBuilder().build(function::apply));
+    }
+
+    public static <A, B, V> MemoizedBiFunction<A, B, V> biFunction(final BiFunction<? super A, ? super B, ? extends V> function,
+                                                                   final Spec spec) {
+        Objects.requireNonNull(function);
+        return new MemoizedBiFunction<>(spec.newBuilder().build(
+                (Arguments<A, B> arguments) -> function.apply(arguments.first, arguments.second)));
+    }
+
+    /**
+     * @param supplier the supplier
+     * @param ttl      how long the value is kept after it was computed
+     */
+    public static <T> MemoizedSupplier<T> supplier(final Supplier<? extends T> supplier, final Duration ttl) {
+        return supplier(supplier, Spec.maximumSize(1).expireAfterWrite(ttl));
+    }
+
+    static <T> MemoizedSupplier<T> supplier(final Supplier<? extends T> supplier, final Spec spec) {
+        Objects.requireNonNull(supplier);
+        return new MemoizedSupplier<>(spec.newBuilder().build(key -> supplier.get()));
+    }
+
+    public static <K, V> AsyncMemoizedFunction<K, V> asyncFunction(final Function<? super K, ? extends V> function,
+                                                                  final Spec spec) {
+        Objects.requireNonNull(function);
+        return new AsyncMemoizedFunction<>(spec.newBuilder().buildAsync(function::apply));
+    }
+
+    public static <T> AsyncMemoizedSupplier<T> asyncSupplier(final Supplier<? extends T> supplier, final Duration ttl) {
+        return asyncSupplier(supplier, Spec.maximumSize(1).expireAfterWrite(ttl));
+    }
+
+    static <T> AsyncMemoizedSupplier<T> asyncSupplier(final Supplier<? extends T> supplier, final Spec spec) {
+        Objects.requireNonNull(supplier);
+        return new AsyncMemoizedSupplier<>(spec.newBuilder().buildAsync(key -> supplier.get()));
+    }
+
+    /**
+     * The size, expiry and executor of a memoization cache, e.g.
+     * {@code Spec.maximumSize(10_000).expireAfterWrite(Duration.ofMinutes(5))}.
+     */
+    public static final class Spec {
+
+        private final long maximumSize;
+        private final Duration expireAfterWrite;
+        private final Duration expireAfterAccess;
+        private final Executor executor;
+        private final Ticker ticker;
+
+        private Spec(final long maximumSize, final Duration expireAfterWrite, final Duration expireAfterAccess,
+                     final Executor executor, final Ticker ticker) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+            this.expireAfterAccess = expireAfterAccess;
+            this.executor = executor;
+            this.ticker = ticker;
+        }
+
+        /**
+         * @param maximumSize the maximum number of results, the least valuable ones get evicted first
+         */
+        public static Spec maximumSize(final long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size must not be negative: " + maximumSize);
+            }
+            return new Spec(maximumSize, null, null, ForkJoinPool.commonPool(), Ticker.systemTicker());
+        }
+
+        /**
+         * @param ttl how long a result is kept after it was computed
+         */
+        public Spec expireAfterWrite(final Duration ttl) {
+            return new Spec(maximumSize, checkPositive(ttl), expireAfterAccess, executor, ticker);
+        }
+
+        /**
+         * @param ttl how long a result is kept after it was used the last time
+         */
+        public Spec expireAfterAccess(final Duration ttl) {
+            return new Spec(maximumSize, expireAfterWrite, checkPositive(ttl), executor, ticker);
+        }
+
+        /**
+         * @param executor the executor for async computations and cache maintenance, the common pool by default
+         */
+        public Spec executor(final Executor executor) {
+            return new Spec(maximumSize, expireAfterWrite, expireAfterAccess, Objects.requireNonNull(executor), ticker);
+        }
+
+        Spec ticker(final Ticker ticker) {
+            return new Spec(maximumSize, expireAfterWrite, expireAfterAccess, executor, Objects.requireNonNull(ticker));
+        }
+
+        private static Duration checkPositive(final Duration ttl) {
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("The time to live must be positive: " + ttl);
+            }
+            return ttl;
+        }
+
+        private Caffeine<Object, Object> newBuilder() {
+            final Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .executor(executor)
+                    .ticker(ticker)
+                    .recordStats();
+            if (expireAfterWrite != null) {
+                builder.expireAfterWrite(expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (expireAfterAccess != null) {
+                builder.expireAfterAccess(expireAfterAccess.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * The base of all memoized functions, gives access to the statistics of the cache.
+     */
+    public abstract static class Memoized {
+
+        /**
+         * @return the hits, misses and load times, e.g. {@link CacheStats#averageLoadPenalty()} in nanoseconds
+         */
+        public abstract CacheStats stats();
+
+        public abstract void invalidateAll();
+    }
+
+    public static final class MemoizedFunction<K, V> extends Memoized implements Function<K, V> {
+
+        private final LoadingCache<K, V> cache;
+
+        private MemoizedFunction(final LoadingCache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public V apply(final K key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public CacheStats stats() {
+            return cache.stats();
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+
+    public static final class MemoizedBiFunction<A, B, V> extends Memoized implements BiFunction<A, B, V> {
+
+        private final LoadingCache<Arguments<A, B>, V> cache;
+
+        private MemoizedBiFunction(final LoadingCache<Arguments<A, B>, V> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public V apply(final A first, final B second) {
+            return cache.get(new Arguments<>(first, second));
+        }
+
+        @Override
+        public CacheStats stats() {
+            return cache.stats();
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+
+    public static final class MemoizedSupplier<T> extends Memoized implements Supplier<T> {
+
+        private final LoadingCache<Object, T> cache;
+
+        private MemoizedSupplier(final LoadingCache<Object, T> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public T get() {
+            return cache.get(SUPPLIER_KEY);
+        }
+
+        @Override
+        public CacheStats stats() {
+            return cache.stats();
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+
+    public static final class AsyncMemoizedFunction<K, V> extends Memoized implements Function<K, CompletableFuture<V>> {
+
+        private final AsyncLoadingCache<K, V> cache;
+
+        private AsyncMemoizedFunction(final AsyncLoadingCache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public CompletableFuture<V> apply(final K key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public CacheStats stats() {
+            return cache.synchronous().stats();
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    public static final class AsyncMemoizedSupplier<T> extends Memoized implements Supplier<CompletableFuture<T>> {
+
+        private final AsyncLoadingCache<Object, T> cache;
+
+        private AsyncMemoizedSupplier(final AsyncLoadingCache<Object, T> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public CompletableFuture<T> get() {
+            return cache.get(SUPPLIER_KEY);
+        }
+
+        @Override
+        public CacheStats stats() {
+            return cache.synchronous().stats();
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    /**
+     * The key of a memoized bi function.
+     */
+    private static final class Arguments<A, B> {
+
+        private final A first;
+        private final B second;
+
+        private Arguments(final A first, final B second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Arguments)) {
+                return false;
+            }
+            final Arguments<?, ?> arguments = (Arguments<?, ?>) other;
+            return Objects.equals(first, arguments.first) && Objects.equals(second, arguments.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(first) + Objects.hashCode(second);
+        }
+    }
+}
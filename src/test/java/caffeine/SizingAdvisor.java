@@ -0,0 +1,186 @@
+package caffeine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+/**
+ * This class finds a maximum size for a cache by replaying a trace against caches of
+ * several sizes with the {@link CacheSimulator}.
+ * <p>
+ * For every size the trace is replayed against the Caffeine configuration and against an
+ * LRU and an LFU cache of the same size, all in the same pass over the trace. The result
+ * is a hit ratio curve per policy, e.g. to find the smallest size with a hit ratio of 90%.
+ * Together with {@link #heapBytesPerEntry(Caffeine, int)} this gives the heap a cache needs.
+ * <p>
+ * The Caffeine curve is subject to run to run noise, see {@link CacheSimulator}, so two
+ * analyses of the same trace can differ slightly. Sizes close to a target hit ratio should
+ * be checked with a few more replays, the LRU and LFU curves are exact.
+ */
+public final class SizingAdvisor {
+
+    public static final String CAFFEINE = "caffeine";
+    public static final String LRU = "lru";
+    public static final String LFU = "lfu";
+
+    private static final Object VALUE = new Object();
+
+    private final LongFunction<Caffeine<Object, Object>> configuration;
+    private final long[] sizes;
+
+    /**
+     * @param configuration creates the builder for a size, e.g.
+     *                      {@code size -> Caffeine.newBuilder().maximumSize(size).expireAfterWrite(5, MINUTES)}
+     * @param sizes         the sizes to compare
+     */
+    public SizingAdvisor(final LongFunction<Caffeine<Object, Object>> configuration, final long... sizes) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("At least one size is needed");
+        }
+        this.configuration = configuration;
+        this.sizes = LongStream.of(sizes).sorted().toArray();
+    }
+
+    /**
+     * Replays the trace with the {@link CacheSimulator#DEFAULT_TICK}, the baselines need
+     * sizes that fit into an int.
+     */
+    public Curves analyze(final LongStream trace) {
+        return analyze(trace, new CacheSimulator());
+    }
+
+    /**
+     * @param simulator a simulator with the tick and loader for the replay, without caches
+     */
+    public Curves analyze(final LongStream trace, final CacheSimulator simulator) {
+        for (long size : sizes) {
+            simulator.addCaffeine(CAFFEINE, configuration.apply(size));
+            simulator.addLru(LRU, Math.toIntExact(size));
+            simulator.addLfu(LFU, Math.toIntExact(size));
+        }
+        final List<CacheSimulator.Result> results = simulator.replay(trace);
+        final Curves curves = new Curves();
+        for (int i = 0; i < sizes.length; i++) {
+            for (int policy = 0; policy < 3; policy++) {
+                final CacheSimulator.Result result = results.get(3 * i + policy);
+                curves.points.computeIfAbsent(result.getName(), name -> new ArrayList<>()).add(new Point(sizes[i], result));
+            }
+        }
+        return curves;
+    }
+
+    /**
+     * Estimates the heap a cache needs per entry by filling it with Long keys that all
+     * share one value. This includes the key and the entry of the cache but not the values,
+     * and it is only an estimate because it compares the used heap after a garbage collection.
+     *
+     * @param builder a configured builder without executor
+     * @param entries the number of entries to put into the cache
+     * @return the bytes per entry
+     */
+    public static long heapBytesPerEntry(final Caffeine<Object, Object> builder, final int entries) {
+        final Cache<Long, Object> cache = builder.executor(Runnable::run).build();
+        final long before = usedHeap();
+        for (long key = 0; key < entries; key++) {
+            cache.put(key, VALUE);
+        }
+        cache.cleanUp();
+        final long after = usedHeap();
+        // the size also keeps the cache reachable until here
+        final long size = cache.estimatedSize();
+        return size == 0 ? 0 : Math.max(0, (after - before) / size);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The result of one policy for one size.
+     */
+    public static final class Point {
+
+        private final long size;
+        private final CacheSimulator.Result result;
+
+        private Point(final long size, final CacheSimulator.Result result) {
+            this.size = size;
+            this.result = result;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public CacheSimulator.Result getResult() {
+            return result;
+        }
+
+        public double getHitRatio() {
+            return result.getHitRatio();
+        }
+    }
+
+    /**
+     * The hit ratio curves of {@link #CAFFEINE}, {@link #LRU} and {@link #LFU}.
+     */
+    public static final class Curves {
+
+        private final Map<String, List<Point>> points = new LinkedHashMap<>();
+
+        private Curves() {
+        }
+
+        /**
+         * @return the points of the policy ordered by size
+         */
+        public List<Point> curve(final String policy) {
+            final List<Point> curve = points.get(policy);
+            if (curve == null) {
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+            }
+            return Collections.unmodifiableList(curve);
+        }
+
+        /**
+         * @return the smallest size that reached the hit ratio, or empty if no size did
+         */
+        public OptionalLong smallestSizeFor(final String policy, final double hitRatio) {
+            for (Point point : curve(policy)) {
+                if (point.getHitRatio() >= hitRatio) {
+                    return OptionalLong.of(point.getSize());
+                }
+            }
+            return OptionalLong.empty();
+        }
+
+        /**
+         * @return a table with a row per size and a column per policy
+         */
+        @Override
+        public String toString() {
+            final StringBuilder table = new StringBuilder(String.format("%12s", "size"));
+            points.keySet().forEach(policy -> table.append(String.format("%10s", policy)));
+            final int rows = points.values().iterator().next().size();
+            for (int row = 0; row < rows; row++) {
+                table.append('\n').append(String.format("%12d", points.get(CAFFEINE).get(row).getSize()));
+                for (List<Point> curve : points.values()) {
+                    table.append(String.format("%10.4f", curve.get(row).getHitRatio()));
+                }
+            }
+            return table.toString();
+        }
+    }
+}
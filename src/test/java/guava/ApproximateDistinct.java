@@ -0,0 +1,82 @@
+package guava;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * This class contains stream operations that remove or count duplicates in a fixed amount
+ * of memory.
+ * <p>
+ * {@link Stream#distinct()} and {@link Collectors#toSet()} keep every element in a HashSet,
+ * which doesn't work for billions of elements. {@link #distinct(Stream, Funnel, long, double)}
+ * remembers the elements in a Guava {@link BloomFilter} instead: an element is never passed
+ * twice, but a new element gets dropped with the false positive probability of the filter.
+ * {@link #countDistinct(Funnel)} estimates the number of distinct elements with a
+ * {@link HyperLogLog} sketch.
+ */
+public final class ApproximateDistinct {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private ApproximateDistinct() {
+    }
+
+    /**
+     * Same as {@link Stream#distinct()} but with a bloom filter, it also works for parallel
+     * streams and never passes an element twice.
+     *
+     * @param stream             the elements
+     * @param funnel             writes the element into the hash, e.g. {@link com.google.common.hash.Funnels#longFunnel()}
+     * @param expectedInsertions the expected number of distinct elements, the false positive
+     *                           probability gets worse when more elements are added
+     * @param fpp                the probability that a new element is dropped, e.g. 0.01
+     * @return the stream without duplicates
+     */
+    public static <T> Stream<T> distinct(final Stream<T> stream, final Funnel<? super T> funnel,
+                                         final long expectedInsertions, final double fpp) {
+        final BloomFilter<T> seen = BloomFilter.create(funnel, expectedInsertions, fpp);
+        // the bloom filter of Guava 22 is not thread safe
+        return stream.filter(element -> {
+            synchronized (seen) {
+                return seen.put(element);
+            }
+        });
+    }
+
+    /**
+     * @return a collector that estimates the number of distinct elements with the default precision
+     */
+    public static <T> Collector<T, ?, Long> countDistinct(final Funnel<? super T> funnel) {
+        return countDistinct(funnel, HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    public static <T> Collector<T, ?, Long> countDistinct(final Funnel<? super T> funnel, final int precision) {
+        return Collectors.collectingAndThen(toHyperLogLog(funnel, precision), HyperLogLog::estimate);
+    }
+
+    /**
+     * Same as {@link #countDistinct(Funnel)} for primitive longs, which are hashed without
+     * creating any objects.
+     */
+    public static long countDistinct(final LongStream numbers) {
+        return numbers.collect(HyperLogLog::new, HyperLogLog::addLong, HyperLogLog::merge).estimate();
+    }
+
+    /**
+     * @return a collector into a sketch that can be merged with other sketches or serialized
+     */
+    public static <T> Collector<T, ?, HyperLogLog> toHyperLogLog(final Funnel<? super T> funnel, final int precision) {
+        HyperLogLog.checkPrecision(precision);
+        return Collector.of(() -> new HyperLogLog(precision),
+                (sketch, element) -> sketch.addHash(HASH.hashObject(element, funnel).asLong()),
+                HyperLogLog::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+}
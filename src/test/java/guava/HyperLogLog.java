@@ -0,0 +1,164 @@
+package guava;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * This class estimates the number of distinct elements with a HyperLogLog sketch.
+ * <p>
+ * The first {@code precision} bits of the 64 bit hash of an element select one of
+ * 2^precision registers, which remembers the longest run of leading zeros in the other
+ * bits. The sketch needs one byte per register no matter how many elements were added,
+ * and its standard error is about {@code 1.04 / sqrt(2^precision)}, e.g. 0.81% with the
+ * default precision of 14 and its 16 KB. Small counts are estimated with linear counting
+ * and are nearly exact.
+ * <p>
+ * Two sketches with the same precision can be merged, e.g. the sketches of the parts of a
+ * parallel stream or of several machines, and {@link #toBytes()} serializes a sketch.
+ * A sketch is not thread safe.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 14;
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+
+    private static final byte SERIAL_VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of index bits between 4 and 18
+     */
+    public HyperLogLog(final int precision) {
+        this(precision, new byte[1 << checkPrecision(precision)]);
+    }
+
+    private HyperLogLog(final int precision, final byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    static int checkPrecision(final int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and "
+                    + MAX_PRECISION + ": " + precision);
+        }
+        return precision;
+    }
+
+    /**
+     * Adds a long with the finalizer of murmur3 as hash, without creating any objects.
+     */
+    public void addLong(final long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        addHash(hash);
+    }
+
+    /**
+     * @param hash a 64 bit hash of the element with well distributed bits, e.g. murmur3
+     */
+    public void addHash(final long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        // the guard bit limits the rank if all remaining bits are 0
+        final long remaining = hash << precision | 1L << (precision - 1);
+        final byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct hashes
+     */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(final int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Adds all hashes of the other sketch to this one.
+     *
+     * @return this sketch
+     */
+    public HyperLogLog merge(final HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Can't merge a sketch with precision " + other.precision
+                    + " into one with precision " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return the relative standard error of the estimate
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * @return a version byte, the precision and the registers
+     */
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(2 + registers.length)
+                .put(SERIAL_VERSION)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    public static HyperLogLog fromBytes(final byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != SERIAL_VERSION) {
+            throw new IllegalArgumentException("Not a serialized HyperLogLog");
+        }
+        final int precision = checkPrecision(bytes[1]);
+        if (bytes.length != 2 + (1 << precision)) {
+            throw new IllegalArgumentException("Expected " + (1 << precision) + " registers but got " + (bytes.length - 2));
+        }
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 2, bytes.length));
+    }
+}
@@ -0,0 +1,373 @@
+package jdk1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * This class creates deep copies of object graphs like persons with their children.
+ * <p>
+ * {@link Person#clone()} only copies the person itself, the child is still shared
+ * (see {@link CloneTest#testCloneObjectAndChangeNestedValues()}). The deep copy also
+ * copies every referenced object. Objects that are referenced multiple times, e.g. a
+ * child that points back to its parent, get copied once and the copy keeps the same
+ * structure.
+ * <p>
+ * The fields of a class are only looked up with reflection the first time an object
+ * of this class gets copied. The resulting copy plan holds method handles for all
+ * fields that need a deep copy and is cached per class. Classes with a public clone
+ * method get copied with it and only the reference fields get replaced afterwards,
+ * all other classes need a constructor without parameters. {@link Person} has its own
+ * plan with static final method handles, which the JIT treats as constants and can
+ * inline.
+ * <p>
+ * Supported are own classes, arrays, {@link ArrayList} and immutable JDK types like
+ * {@link String}, boxed primitives, enums and java.time values which are not copied.
+ */
+public final class DeepCopier {
+
+    private static final ClassValue<CopyPlan> PLANS = new ClassValue<CopyPlan>() {
+        @Override
+        protected CopyPlan computeValue(final Class<?> type) {
+            return createPlan(type);
+        }
+    };
+
+    private DeepCopier() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(final T object) {
+        return (T) new Context().copy(object);
+    }
+
+    /**
+     * Copies all objects of the list. Objects shared between the list elements stay
+     * shared in the copied list.
+     *
+     * @param objects the objects to copy
+     * @param <T>     the type of the objects
+     * @return a new list with the copies
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> copyAll(final List<T> objects) {
+        final Context context = new Context();
+        final List<T> copies = new ArrayList<>(objects.size());
+        for (T object : objects) {
+            copies.add((T) context.copy(object));
+        }
+        return copies;
+    }
+
+    /**
+     * Copies all objects of the list in parallel. Every element gets copied on its own,
+     * so objects shared between different list elements get copied once per element.
+     *
+     * @param objects the objects to copy
+     * @param <T>     the type of the objects
+     * @return a new list with the copies in the same order
+     */
+    public static <T> List<T> copyAllParallel(final List<T> objects) {
+        return objects.parallelStream()
+                .map(DeepCopier::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Copies a graph without recursion, so also long chains of children don't
+     * overflow the stack. Every object first gets a shallow copy which is registered
+     * before its fields get copied, that's how cycles end up in the already copied object.
+     */
+    private static final class Context {
+
+        private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        Object copy(final Object root) {
+            final Object rootCopy = copyOf(root);
+            while (!pending.isEmpty()) {
+                final Object copy = pending.pop();
+                final Object original = pending.pop();
+                PLANS.get(original.getClass()).fill(original, copy, this);
+            }
+            return rootCopy;
+        }
+
+        Object copyOf(final Object original) {
+            if (original == null) {
+                return null;
+            }
+            final CopyPlan plan = PLANS.get(original.getClass());
+            if (plan == IMMUTABLE) {
+                return original;
+            }
+            Object copy = copies.get(original);
+            if (copy == null) {
+                copy = plan.shell(original);
+                copies.put(original, copy);
+                pending.push(original);
+                pending.push(copy);
+            }
+            return copy;
+        }
+    }
+
+    private interface CopyPlan {
+
+        /**
+         * Creates the copy without the referenced objects.
+         */
+        Object shell(Object original);
+
+        /**
+         * Sets the copies of the referenced objects.
+         */
+        void fill(Object original, Object copy, Context context);
+    }
+
+    private static final CopyPlan IMMUTABLE = new CopyPlan() {
+        @Override
+        public Object shell(final Object original) {
+            return original;
+        }
+
+        @Override
+        public void fill(final Object original, final Object copy, final Context context) {
+        }
+    };
+
+    private static CopyPlan createPlan(final Class<?> type) {
+        if (isImmutable(type)) {
+            return IMMUTABLE;
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? new PrimitiveArrayPlan() : new ObjectArrayPlan();
+        }
+        if (type == ArrayList.class) {
+            return new ArrayListPlan();
+        }
+        if (type == Person.class) {
+            return new PersonPlan();
+        }
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            throw new IllegalArgumentException("Can not deep copy " + type.getName());
+        }
+        return new FieldPlan(type);
+    }
+
+    private static boolean isImmutable(final Class<?> type) {
+        return type.isPrimitive()
+                || type == String.class
+                || type == Integer.class
+                || type == Long.class
+                || type == Short.class
+                || type == Byte.class
+                || type == Character.class
+                || type == Boolean.class
+                || type == Double.class
+                || type == Float.class
+                || type == BigInteger.class
+                || type == BigDecimal.class
+                || type == Class.class
+                || Enum.class.isAssignableFrom(type)
+                || (type.getName().startsWith("java.time.") && !type.isInterface());
+    }
+
+    private static final class PrimitiveArrayPlan implements CopyPlan {
+
+        @Override
+        public Object shell(final Object original) {
+            final int length = Array.getLength(original);
+            final Object copy = Array.newInstance(original.getClass().getComponentType(), length);
+            System.arraycopy(original, 0, copy, 0, length);
+            return copy;
+        }
+
+        @Override
+        public void fill(final Object original, final Object copy, final Context context) {
+        }
+    }
+
+    private static final class ObjectArrayPlan implements CopyPlan {
+
+        @Override
+        public Object shell(final Object original) {
+            return ((Object[]) original).clone();
+        }
+
+        @Override
+        public void fill(final Object original, final Object copy, final Context context) {
+            final Object[] originalArray = (Object[]) original;
+            final Object[] copyArray = (Object[]) copy;
+            for (int i = 0; i < originalArray.length; i++) {
+                copyArray[i] = context.copyOf(originalArray[i]);
+            }
+        }
+    }
+
+    private static final class ArrayListPlan implements CopyPlan {
+
+        @Override
+        public Object shell(final Object original) {
+            return new ArrayList<>(((ArrayList<?>) original).size());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void fill(final Object original, final Object copy, final Context context) {
+            final List<Object> copyList = (List<Object>) copy;
+            for (Object element : (ArrayList<?>) original) {
+                copyList.add(context.copyOf(element));
+            }
+        }
+    }
+
+    /**
+     * Copies a {@link Person} with its clone method and replaces the child.
+     */
+    private static final class PersonPlan implements CopyPlan {
+
+        private static final MethodHandle CLONE;
+        private static final MethodHandle GET_CHILD;
+        private static final MethodHandle SET_CHILD;
+
+        static {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                CLONE = lookup.unreflect(Person.class.getMethod("clone")).asType(FieldPlan.SHELL_TYPE);
+                final Field child = Person.class.getDeclaredField("child");
+                child.setAccessible(true);
+                GET_CHILD = lookup.unreflectGetter(child).asType(FieldPlan.GETTER_TYPE);
+                SET_CHILD = lookup.unreflectSetter(child).asType(FieldPlan.SETTER_TYPE);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @Override
+        public Object shell(final Object original) {
+            try {
+                return (Object) CLONE.invokeExact(original);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not copy " + original.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        public void fill(final Object original, final Object copy, final Context context) {
+            try {
+                final Object child = (Object) GET_CHILD.invokeExact(original);
+                SET_CHILD.invokeExact(copy, context.copyOf(child));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not copy " + original.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Copies objects field by field with method handles that are created once per class.
+     * The handles differ per class, so they can only be final instance fields here.
+     */
+    private static final class FieldPlan implements CopyPlan {
+
+        private static final MethodType SHELL_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final MethodHandle shell;
+        private final MethodHandle[] getters;
+        private final MethodHandle[] setters;
+
+        FieldPlan(final Class<?> type) {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                final MethodHandle clone = findPublicClone(type, lookup);
+                if (clone != null) {
+                    shell = clone.asType(SHELL_TYPE);
+                } else {
+                    final Constructor<?> constructor = type.getDeclaredConstructor();
+                    constructor.setAccessible(true);
+                    shell = MethodHandles.dropArguments(lookup.unreflectConstructor(constructor), 0, Object.class)
+                            .asType(SHELL_TYPE);
+                }
+
+                // a clone already contains all primitive and immutable values
+                final List<Field> fields = new ArrayList<>();
+                for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                    for (Field field : current.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers()) && !(clone != null && isImmutable(field.getType()))) {
+                            field.setAccessible(true);
+                            fields.add(field);
+                        }
+                    }
+                }
+                Collections.reverse(fields);
+
+                getters = new MethodHandle[fields.size()];
+                setters = new MethodHandle[fields.size()];
+                for (int i = 0; i < fields.size(); i++) {
+                    getters[i] = lookup.unreflectGetter(fields.get(i)).asType(GETTER_TYPE);
+                    setters[i] = lookup.unreflectSetter(fields.get(i)).asType(SETTER_TYPE);
+                }
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName() + " needs a public clone method or a constructor without parameters", e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can not access the fields of " + type.getName(), e);
+            }
+        }
+
+        private static MethodHandle findPublicClone(final Class<?> type, final MethodHandles.Lookup lookup) throws IllegalAccessException {
+            if (!Cloneable.class.isAssignableFrom(type)) {
+                return null;
+            }
+            try {
+                final Method clone = type.getMethod("clone");
+                return clone.getParameterCount() == 0 ? lookup.unreflect(clone) : null;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Object shell(final Object original) {
+            try {
+                return (Object) shell.invokeExact(original);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not copy " + original.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        public void fill(final Object original, final Object copy, final Context context) {
+            try {
+                for (int i = 0; i < getters.length; i++) {
+                    final Object value = (Object) getters[i].invokeExact(original);
+                    setters[i].invokeExact(copy, context.copyOf(value));
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not copy " + original.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package jdk1;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link DeepCopier}.
+ */
+public class DeepCopierTest {
+
+    @Test
+    public void testCopyNestedValues() {
+        final Person homer = new Person("Homer", 39);
+        homer.setChild(new Person("Bart", 10));
+        final Person homerCopy = DeepCopier.copy(homer);
+
+        // other than with clone the nested objects are copied too
+        assertThat(homerCopy).isNotSameAs(homer);
+        assertThat(homerCopy.getChild()).isNotSameAs(homer.getChild());
+        assertThat(homerCopy.getAge()).isEqualTo(39);
+
+        homerCopy.getChild().setName("Lisa");
+
+        assertThat(homer.getChild().getName()).isEqualTo("Bart");
+        assertThat(homerCopy.getChild().getName()).isEqualTo("Lisa");
+    }
+
+    @Test
+    public void testCopyCycle() {
+        final Person homer = new Person("Homer");
+        final Person bart = new Person("Bart");
+        homer.setChild(bart);
+        bart.setChild(homer);
+
+        final Person homerCopy = DeepCopier.copy(homer);
+
+        assertThat(homerCopy.getChild()).isNotSameAs(bart);
+        assertThat(homerCopy.getChild().getChild()).isSameAs(homerCopy);
+    }
+
+    @Test
+    public void testCopyLongChain() {
+        final Person first = new Person("Person0");
+        Person last = first;
+        for (int i = 1; i < 100_000; i++) {
+            final Person child = new Person("Person" + i);
+            last.setChild(child);
+            last = child;
+        }
+
+        Person copy = DeepCopier.copy(first);
+        int length = 0;
+        while (copy != null) {
+            length++;
+            copy = copy.getChild();
+        }
+
+        assertThat(length).isEqualTo(100_000);
+    }
+
+    @Test
+    public void testCopyListKeepsSharedObjects() {
+        final Person bart = new Person("Bart");
+        final Person homer = new Person("Homer");
+        final Person marge = new Person("Marge");
+        homer.setChild(bart);
+        marge.setChild(bart);
+
+        final List<Person> copies = DeepCopier.copyAll(Arrays.asList(homer, marge));
+        assertThat(copies.get(0).getChild()).isNotSameAs(bart);
+        assertThat(copies.get(0).getChild()).isSameAs(copies.get(1).getChild());
+
+        // in parallel every element gets its own copies
+        final List<Person> parallelCopies = DeepCopier.copyAllParallel(Arrays.asList(homer, marge));
+        assertThat(parallelCopies.get(0).getName()).isEqualTo("Homer");
+        assertThat(parallelCopies.get(0).getChild()).isNotSameAs(parallelCopies.get(1).getChild());
+    }
+
+    @Test
+    public void testCopyClassWithoutClone() {
+        final Family family = new Family();
+        family.persons.add(new Person("Homer"));
+        family.ages = new int[]{39, 10};
+        family.founded = LocalDate.of(1989, 12, 17);
+
+        final Family copy = DeepCopier.copy(family);
+
+        assertThat(copy.persons).isNotSameAs(family.persons);
+        assertThat(copy.persons.get(0)).isNotSameAs(family.persons.get(0));
+        assertThat(copy.persons.get(0).getName()).isEqualTo("Homer");
+        assertThat(copy.ages).isNotSameAs(family.ages);
+        assertThat(copy.ages).isEqualTo(family.ages);
+        assertThat(copy.founded).isSameAs(family.founded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyUnsupportedJdkClass() {
+        DeepCopier.copy(new HashMap<String, Person>());
+    }
+
+    static class Family {
+        private final List<Person> persons = new ArrayList<>();
+        private int[] ages;
+        private LocalDate founded;
+    }
+}
@@ -4,10 +4,15 @@ package jdk1; /**
  * @author Fabian Dietenberger
  */
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
-public class Person implements Cloneable {
+public class Person implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String name;
     private int age;
@@ -51,9 +56,9 @@ public class Person implements Cloneable {
         try {
             return (Person) super.clone();
         } catch (CloneNotSupportedException e) {
-            e.printStackTrace();
+            // can not happen as we implement Cloneable
+            throw new AssertionError(e);
         }
-        return null;
     }
 
     public static List<Person> createPersons() {
@@ -63,4 +68,20 @@ public class Person implements Cloneable {
                 new Person("Pamela", 23),
                 new Person("David", 12));
     }
+
+    /**
+     * Creates a bigger list of persons for benchmarks. The same amount always
+     * creates the same persons with unique names and ages between 0 and 99.
+     *
+     * @param amount the number of persons to create
+     * @return a mutable list of persons
+     */
+    public static List<Person> createPersons(final int amount) {
+        final Random random = new Random(amount);
+        final List<Person> persons = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            persons.add(new Person("Person" + i, random.nextInt(100)));
+        }
+        return persons;
+    }
 }
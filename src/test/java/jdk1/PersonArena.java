@@ -0,0 +1,448 @@
+package jdk1;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class stores persons outside of the heap, in direct {@link ByteBuffer} slabs.
+ * <p>
+ * Every {@link Person} is an object with a header, a String with its own char array and a
+ * reference to the child, and the garbage collector has to visit all of them again and
+ * again. Here a person is a fixed size record in a slab and is addressed by an int id, so
+ * millions of persons are only a few objects for the garbage collector. The data is read
+ * through a {@link Cursor}, a flyweight that can be moved from record to record.
+ * <p>
+ * A record has the following layout, in the native byte order:
+ * <pre>
+ * age         int
+ * child       int, the id of the child or {@link #NO_CHILD}
+ * name length short, -1 if the name is null
+ * name        the UTF-8 bytes of the name, at most the max name bytes of the arena
+ * </pre>
+ * Records are allocated and freed explicitly. The id of a freed record gets reused by the
+ * next allocation, so a freed id must not be used anymore. The arena may be read from many
+ * threads, but allocations, frees and setters need external synchronization.
+ */
+public final class PersonArena {
+
+    public static final int NO_CHILD = -1;
+
+    static final int DEFAULT_MAX_NAME_BYTES = 22;
+    static final int DEFAULT_SLAB_SHIFT = 15;
+
+    private static final int AGE = 0;
+    private static final int CHILD = 4;
+    private static final int NAME_LENGTH = 8;
+    private static final int NAME = 10;
+
+    private static final short NULL_NAME = -1;
+    private static final short FREE = -2;
+
+    private final int maxNameBytes;
+    private final int recordSize;
+    private final int slabShift;
+    private final int slabMask;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * The number of records that were ever allocated, the ids below are either used or free.
+     */
+    private int top;
+    private int size;
+
+    /**
+     * The first free id, the child field of a free record points to the next one.
+     */
+    private int freeHead = NO_CHILD;
+
+    public PersonArena() {
+        this(DEFAULT_MAX_NAME_BYTES, DEFAULT_SLAB_SHIFT);
+    }
+
+    /**
+     * @param maxNameBytes the maximum length of a name in UTF-8 bytes
+     * @param slabShift    every slab holds 2^slabShift records
+     */
+    public PersonArena(final int maxNameBytes, final int slabShift) {
+        if (maxNameBytes < 0 || maxNameBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid max name bytes: " + maxNameBytes);
+        }
+        if (slabShift < 0 || slabShift > 24) {
+            throw new IllegalArgumentException("Invalid slab shift: " + slabShift);
+        }
+        if ((long) ((NAME + maxNameBytes + 7) & ~7) << slabShift > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A slab of 2^" + slabShift + " records does not fit into a buffer");
+        }
+        this.maxNameBytes = maxNameBytes;
+        // 8 byte aligned, so the ints of a record never cross a cache line
+        this.recordSize = (NAME + maxNameBytes + 7) & ~7;
+        this.slabShift = slabShift;
+        this.slabMask = (1 << slabShift) - 1;
+    }
+
+    /**
+     * Copies the persons in the order of the list, so the index of a person is its id. Children
+     * that are not in the list get their own records after the listed persons.
+     */
+    public static PersonArena of(final List<Person> persons) {
+        final PersonArena arena = new PersonArena();
+        final int[] listIds = new int[persons.size()];
+        final Map<Person, Integer> ids = new IdentityHashMap<>();
+        for (int i = 0; i < listIds.length; i++) {
+            final Person person = persons.get(i);
+            listIds[i] = arena.allocate(person.getName(), person.getAge());
+            ids.putIfAbsent(person, listIds[i]);
+        }
+
+        // links the children in a second pass, a child may come later in the list
+        final Cursor cursor = arena.cursor();
+        for (int i = 0; i < listIds.length; i++) {
+            Person person = persons.get(i);
+            int id = listIds[i];
+            while (person.getChild() != null) {
+                final Person child = person.getChild();
+                Integer childId = ids.get(child);
+                final boolean copied = childId != null;
+                if (!copied) {
+                    childId = arena.allocate(child.getName(), child.getAge());
+                    ids.put(child, childId);
+                }
+                cursor.moveTo(id).setChild(childId);
+                if (copied) {
+                    // its own child gets linked on its turn, this also stops at cycles
+                    break;
+                }
+                person = child;
+                id = childId;
+            }
+        }
+        return arena;
+    }
+
+    /**
+     * @return the id of the new person
+     * @throws IllegalArgumentException if the name is longer than the max name bytes
+     */
+    public int allocate(final String name, final int age) {
+        final int id;
+        if (freeHead != NO_CHILD) {
+            id = freeHead;
+            freeHead = slab(id).getInt(offset(id) + CHILD);
+        } else {
+            if (top == Integer.MAX_VALUE) {
+                throw new IllegalStateException("The arena is full");
+            }
+            id = top++;
+            if (id >>> slabShift == slabs.size()) {
+                slabs.add(ByteBuffer.allocateDirect(recordSize << slabShift).order(ByteOrder.nativeOrder()));
+            }
+        }
+        final ByteBuffer slab = slab(id);
+        final int offset = offset(id);
+        try {
+            writeName(slab, offset, name);
+        } catch (IllegalArgumentException e) {
+            slab.putShort(offset + NAME_LENGTH, FREE);
+            slab.putInt(offset + CHILD, freeHead);
+            freeHead = id;
+            throw e;
+        }
+        slab.putInt(offset + AGE, age);
+        slab.putInt(offset + CHILD, NO_CHILD);
+        size++;
+        return id;
+    }
+
+    /**
+     * Frees the record, children that point to it must be changed before.
+     */
+    public void free(final int id) {
+        checkLive(id);
+        final ByteBuffer slab = slab(id);
+        slab.putShort(offset(id) + NAME_LENGTH, FREE);
+        slab.putInt(offset(id) + CHILD, freeHead);
+        freeHead = id;
+        size--;
+    }
+
+    public boolean isLive(final int id) {
+        return id >= 0 && id < top && slab(id).getShort(offset(id) + NAME_LENGTH) != FREE;
+    }
+
+    /**
+     * @return the number of live persons
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes of all slabs
+     */
+    public long capacityBytes() {
+        return (long) slabs.size() * (recordSize << slabShift);
+    }
+
+    /**
+     * @return a new cursor that is not on any record yet
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public Cursor cursor(final int id) {
+        return new Cursor().moveTo(id);
+    }
+
+    /**
+     * A stream of all live persons in the order of their ids. The stream passes the same
+     * cursor again and again, so an element must not be kept after it was handled; use
+     * {@link Cursor#toPerson()} or {@link Cursor#id()} to keep it.
+     */
+    public Stream<Cursor> stream() {
+        return StreamSupport.stream(new CursorSpliterator(0, top), false);
+    }
+
+    public Stream<Cursor> parallelStream() {
+        return StreamSupport.stream(new CursorSpliterator(0, top), true);
+    }
+
+    /**
+     * Checks the length before the first byte is written, so a name that is too long leaves
+     * the record unchanged.
+     */
+    private void writeName(final ByteBuffer slab, final int offset, final String name) {
+        if (name == null) {
+            slab.putShort(offset + NAME_LENGTH, NULL_NAME);
+            return;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                // not ASCII, take the slow way
+                final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                checkNameLength(bytes.length);
+                for (int b = 0; b < bytes.length; b++) {
+                    slab.put(offset + NAME + b, bytes[b]);
+                }
+                slab.putShort(offset + NAME_LENGTH, (short) bytes.length);
+                return;
+            }
+        }
+        // ASCII, one byte per char
+        checkNameLength(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            slab.put(offset + NAME + i, (byte) name.charAt(i));
+        }
+        slab.putShort(offset + NAME_LENGTH, (short) name.length());
+    }
+
+    private void checkNameLength(final int length) {
+        if (length > maxNameBytes) {
+            throw new IllegalArgumentException("The name is longer than " + maxNameBytes + " bytes");
+        }
+    }
+
+    private ByteBuffer slab(final int id) {
+        return slabs.get(id >>> slabShift);
+    }
+
+    private int offset(final int id) {
+        return (id & slabMask) * recordSize;
+    }
+
+    private void checkLive(final int id) {
+        if (!isLive(id)) {
+            throw new IllegalArgumentException("No person with id " + id);
+        }
+    }
+
+    /**
+     * A view of one record with the same methods as a {@link Person}. It can be moved to
+     * another record with {@link #moveTo(int)}, so one cursor can visit all persons.
+     */
+    public final class Cursor {
+
+        private int id = NO_CHILD;
+        private ByteBuffer slab;
+        private int offset;
+
+        /**
+         * Reused by {@link #getName()}, the String copies the bytes anyway.
+         */
+        private final byte[] nameBytes = new byte[maxNameBytes];
+
+        private Cursor() {
+        }
+
+        /**
+         * @throws IllegalArgumentException if there is no live person with the id
+         */
+        public Cursor moveTo(final int id) {
+            checkLive(id);
+            moveToUnchecked(id);
+            return this;
+        }
+
+        private void moveToUnchecked(final int id) {
+            this.id = id;
+            this.slab = slab(id);
+            this.offset = offset(id);
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String getName() {
+            final int length = slab.getShort(offset + NAME_LENGTH);
+            if (length == NULL_NAME) {
+                return null;
+            }
+            for (int i = 0; i < length; i++) {
+                nameBytes[i] = slab.get(offset + NAME + i);
+            }
+            return new String(nameBytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Same as {@code getName().startsWith(prefix)} for an ASCII prefix, but without creating the name.
+         */
+        public boolean nameStartsWith(final String prefix) {
+            final int length = slab.getShort(offset + NAME_LENGTH);
+            if (length < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (slab.get(offset + NAME + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void setName(final String name) {
+            writeName(slab, offset, name);
+        }
+
+        public int getAge() {
+            return slab.getInt(offset + AGE);
+        }
+
+        public void setAge(final int age) {
+            slab.putInt(offset + AGE, age);
+        }
+
+        /**
+         * @return the id of the child or {@link #NO_CHILD}
+         */
+        public int getChildId() {
+            return slab.getInt(offset + CHILD);
+        }
+
+        /**
+         * @return a new cursor on the child or null, use {@link #getChildId()} to stay on this cursor
+         */
+        public Cursor getChild() {
+            final int child = getChildId();
+            return child == NO_CHILD ? null : cursor(child);
+        }
+
+        public void setChild(final int child) {
+            if (child != NO_CHILD) {
+                checkLive(child);
+            }
+            slab.putInt(offset + CHILD, child);
+        }
+
+        /**
+         * @return a heap copy of the person without its child
+         */
+        public Person toPerson() {
+            return new Person(getName(), getAge());
+        }
+
+        @Override
+        public String toString() {
+            return "Cursor{id=" + id + ", name=" + getName() + ", age=" + getAge() + "}";
+        }
+    }
+
+    /**
+     * Moves its own cursor over a range of ids and skips the free records.
+     */
+    private final class CursorSpliterator implements Spliterator<Cursor> {
+
+        private static final int MIN_SPLIT_SIZE = 1024;
+
+        private final Cursor cursor = new Cursor();
+        private int index;
+        private final int fence;
+
+        private CursorSpliterator(final int origin, final int fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Cursor> action) {
+            while (index < fence) {
+                final int id = index++;
+                if (slab(id).getShort(offset(id) + NAME_LENGTH) != FREE) {
+                    cursor.moveToUnchecked(id);
+                    action.accept(cursor);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super Cursor> action) {
+            // walks slab by slab, so the cursor only needs a new offset for the next record
+            int id = index;
+            while (id < fence) {
+                final ByteBuffer slab = slab(id);
+                final int slabEnd = Math.min(fence, (id | slabMask) + 1);
+                cursor.slab = slab;
+                for (int offset = offset(id); id < slabEnd; id++, offset += recordSize) {
+                    if (slab.getShort(offset + NAME_LENGTH) != FREE) {
+                        cursor.id = id;
+                        cursor.offset = offset;
+                        action.accept(cursor);
+                    }
+                }
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<Cursor> trySplit() {
+            final int middle = (index + fence) >>> 1;
+            if (middle - index < MIN_SPLIT_SIZE) {
+                return null;
+            }
+            final Spliterator<Cursor> prefix = new CursorSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package jdk1;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link PersonArena}.
+ */
+public class PersonArenaTest {
+
+    @Test
+    public void testAllocateAndRead() {
+        final PersonArena arena = new PersonArena();
+        final int max = arena.allocate("Max", 18);
+        final int jurgen = arena.allocate("Jürgen 😀", 40);
+        final int nobody = arena.allocate(null, 1);
+
+        final PersonArena.Cursor cursor = arena.cursor(max);
+        assertThat(cursor.getName()).isEqualTo("Max");
+        assertThat(cursor.getAge()).isEqualTo(18);
+        assertThat(cursor.getChild()).isNull();
+        assertThat(cursor.moveTo(jurgen).getName()).isEqualTo("Jürgen 😀");
+        assertThat(cursor.moveTo(nobody).getName()).isNull();
+        assertThat(arena.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testChildren() {
+        final PersonArena arena = new PersonArena();
+        final int max = arena.allocate("Max", 45);
+        final int child = arena.allocate("Child", 20);
+
+        final PersonArena.Cursor cursor = arena.cursor(max);
+        cursor.setChild(child);
+        cursor.setAge(46);
+
+        assertThat(cursor.getChildId()).isEqualTo(child);
+        assertThat(cursor.getChild().getName()).isEqualTo("Child");
+        assertThat(arena.cursor(max).getAge()).isEqualTo(46);
+        assertThat(cursor.toPerson().getAge()).isEqualTo(46);
+    }
+
+    @Test
+    public void testFreeAndReuse() {
+        final PersonArena arena = new PersonArena(22, 2);
+        for (int i = 0; i < 10; i++) {
+            arena.allocate("Person" + i, i);
+        }
+
+        arena.free(3);
+        arena.free(7);
+
+        assertThat(arena.size()).isEqualTo(8);
+        assertThat(arena.isLive(3)).isFalse();
+        assertThat(arena.stream().map(PersonArena.Cursor::getAge).collect(Collectors.toList()))
+                .containsExactly(0, 1, 2, 4, 5, 6, 8, 9).inOrder();
+
+        // the last freed id is reused first
+        assertThat(arena.allocate("New", 70)).isEqualTo(7);
+        assertThat(arena.allocate("Newer", 30)).isEqualTo(3);
+        assertThat(arena.allocate("Newest", 100)).isEqualTo(10);
+        assertThat(arena.cursor(3).getName()).isEqualTo("Newer");
+        assertThat(arena.capacityBytes()).isEqualTo(3 * 4 * 32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFreedIdCanNotBeRead() {
+        final PersonArena arena = new PersonArena();
+        final int id = arena.allocate("Max", 18);
+        arena.free(id);
+
+        arena.cursor(id);
+    }
+
+    @Test
+    public void testNameTooLong() {
+        final PersonArena arena = new PersonArena(4, 4);
+        try {
+            arena.allocate("Pamela", 23);
+            throw new AssertionError("The name is too long");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageThat().contains("4 bytes");
+        }
+
+        // the record of the failed allocation is used again
+        assertThat(arena.allocate("Max", 18)).isEqualTo(0);
+        assertThat(arena.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedSetNameKeepsOldName() {
+        final PersonArena arena = new PersonArena(4, 4);
+        final PersonArena.Cursor cursor = arena.cursor(arena.allocate("Max", 18));
+
+        for (String name : new String[]{"Pamela", "Jürgen"}) {
+            try {
+                cursor.setName(name);
+                throw new AssertionError("The name is too long");
+            } catch (IllegalArgumentException e) {
+                assertThat(cursor.getName()).isEqualTo("Max");
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSlabMustFitIntoABuffer() {
+        new PersonArena(Short.MAX_VALUE, 24);
+    }
+
+    @Test
+    public void testOfCopiesChildren() {
+        final List<Person> persons = Person.createPersons();
+        final Person grandchild = new Person("Tim", 1);
+        persons.get(3).setChild(grandchild);
+        // a child that comes later in the list keeps its id
+        persons.get(0).setChild(persons.get(3));
+
+        final PersonArena arena = PersonArena.of(persons);
+
+        assertThat(arena.size()).isEqualTo(5);
+        assertThat(arena.cursor(0).getChildId()).isEqualTo(3);
+        assertThat(arena.cursor(3).getChild().getName()).isEqualTo("Tim");
+        assertThat(arena.cursor(1).getChildId()).isEqualTo(PersonArena.NO_CHILD);
+    }
+
+    /**
+     * Same as {@link jdk8.StreamsTest#createAPhrase()}.
+     */
+    @Test
+    public void testStreamPipeline() {
+        final PersonArena arena = PersonArena.of(Person.createPersons());
+
+        final String phrase = arena.stream()
+                .filter(p -> p.getAge() >= 18)
+                .map(PersonArena.Cursor::getName)
+                .collect(Collectors.joining(" and ", "In Germany ", " are of legal age."));
+
+        assertThat(phrase).isEqualTo("In Germany Max and Peter and Pamela are of legal age.");
+        assertThat(arena.stream().filter(p -> p.nameStartsWith("P")).count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testParallelStream() {
+        final List<Person> persons = Person.createPersons(100_000);
+        final PersonArena arena = PersonArena.of(persons);
+        for (int id = 0; id < persons.size(); id += 3) {
+            arena.free(id);
+        }
+
+        final List<String> adults = arena.parallelStream()
+                .filter(p -> p.getAge() >= 18)
+                .map(PersonArena.Cursor::getName)
+                .collect(Collectors.toList());
+
+        final List<String> expected = new ArrayList<>();
+        for (int id = 0; id < persons.size(); id++) {
+            if (id % 3 != 0 && persons.get(id).getAge() >= 18) {
+                expected.add(persons.get(id).getName());
+            }
+        }
+        assertThat(adults).containsExactlyElementsIn(expected).inOrder();
+    }
+}
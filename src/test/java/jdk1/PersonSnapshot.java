@@ -0,0 +1,318 @@
+package jdk1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * This class stores persons in a binary file and reads them through a memory-mapped buffer.
+ * <p>
+ * Loading a snapshot only maps the file, so it takes the same time for ten persons and for
+ * ten million. The pages are read by the operating system when a row is accessed and are
+ * shared with the page cache instead of living on the heap. A {@link Person} is only
+ * created when {@link #getPerson(int)} is called, the columns can be read without
+ * creating any objects.
+ * <p>
+ * The file has a header followed by columns, all numbers are little endian:
+ * <pre>
+ * header    magic (int), version (int), rows (int), reserved (int), name heap size (long)
+ * ages      int per row
+ * children  int per row, the row of the child or {@link #NO_CHILD}
+ * name ends int per row, the end of the name in the name heap, ~end if the name is null
+ * name heap the UTF-8 bytes of all names, a name starts at the end of the previous one
+ * </pre>
+ * The rows are the given persons in their order, followed by their children that are not
+ * contained in the list. The whole file must be smaller than 2 GB.
+ */
+public final class PersonSnapshot {
+
+    public static final int NO_CHILD = -1;
+
+    static final int MAGIC = 0x50534e50;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int childrenOffset;
+    private final int nameEndsOffset;
+    private final int nameHeapOffset;
+
+    private PersonSnapshot(final ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a person snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.rows = buffer.getInt(8);
+        this.childrenOffset = HEADER_SIZE + 4 * rows;
+        this.nameEndsOffset = childrenOffset + 4 * rows;
+        this.nameHeapOffset = nameEndsOffset + 4 * rows;
+        if ((long) nameHeapOffset + buffer.getLong(16) != buffer.capacity()) {
+            throw new IllegalArgumentException("The snapshot is truncated");
+        }
+    }
+
+    /**
+     * Maps the file into memory, the file must not be changed while the snapshot is used.
+     */
+    public static PersonSnapshot open(final Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The snapshot is bigger than 2 GB: " + file);
+            }
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PersonSnapshot(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the persons and their children into the file.
+     *
+     * @return the number of rows
+     */
+    public static int write(final List<Person> persons, final Path file) {
+        final List<Person> rows = new ArrayList<>(persons);
+        final Map<Person, Integer> rowOf = new IdentityHashMap<>(rows.size());
+        for (int row = 0; row < rows.size(); row++) {
+            rowOf.putIfAbsent(rows.get(row), row);
+        }
+        // adds the children that are not in the list, the list grows while it is walked
+        for (int row = 0; row < rows.size(); row++) {
+            final Person child = rows.get(row).getChild();
+            if (child != null && !rowOf.containsKey(child)) {
+                rowOf.put(child, rows.size());
+                rows.add(child);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer data = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            data.position(HEADER_SIZE);
+            for (Person person : rows) {
+                putInt(data, person.getAge(), channel);
+            }
+            for (Person person : rows) {
+                final Person child = person.getChild();
+                putInt(data, child == null ? NO_CHILD : rowOf.get(child), channel);
+            }
+            write(data, channel);
+
+            // the name ends are written at their own position while the names are appended
+            long nameEndsPosition = HEADER_SIZE + 8L * rows.size();
+            channel.position(nameEndsPosition + 4L * rows.size());
+            final ByteBuffer nameEnds = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            long nameEnd = 0;
+            for (Person person : rows) {
+                if (!nameEnds.hasRemaining()) {
+                    nameEndsPosition += write(nameEnds, channel, nameEndsPosition);
+                }
+                final String name = person.getName();
+                if (name == null) {
+                    nameEnds.putInt(~checkSize(nameEnd));
+                    continue;
+                }
+                final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                int start = 0;
+                while (start < bytes.length) {
+                    if (!data.hasRemaining()) {
+                        write(data, channel);
+                    }
+                    final int length = Math.min(data.remaining(), bytes.length - start);
+                    data.put(bytes, start, length);
+                    start += length;
+                }
+                nameEnd += bytes.length;
+                nameEnds.putInt(checkSize(nameEnd));
+            }
+            write(data, channel);
+            write(nameEnds, channel, nameEndsPosition);
+            checkSize(HEADER_SIZE + 12L * rows.size() + nameEnd);
+
+            data.putInt(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(0).putLong(nameEnd);
+            write(data, channel, 0);
+            return rows.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void putInt(final ByteBuffer buffer, final int value, final FileChannel channel) throws IOException {
+        if (buffer.remaining() < 4) {
+            write(buffer, channel);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void write(final ByteBuffer buffer, final FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffer at the position without changing the position of the channel.
+     *
+     * @return the number of written bytes
+     */
+    private static int write(final ByteBuffer buffer, final FileChannel channel, final long position) throws IOException {
+        buffer.flip();
+        final int bytes = buffer.remaining();
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    private static int checkSize(final long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The snapshot would be bigger than 2 GB");
+        }
+        return (int) size;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public int getAge(final int row) {
+        checkRow(row);
+        return buffer.getInt(HEADER_SIZE + 4 * row);
+    }
+
+    /**
+     * @return the row of the child or {@link #NO_CHILD}
+     */
+    public int getChild(final int row) {
+        checkRow(row);
+        return buffer.getInt(childrenOffset + 4 * row);
+    }
+
+    /**
+     * @return the UTF-8 bytes of the name without copying them, or null
+     */
+    public ByteBuffer getNameBytes(final int row) {
+        checkRow(row);
+        final int end = buffer.getInt(nameEndsOffset + 4 * row);
+        if (end < 0) {
+            return null;
+        }
+        final ByteBuffer name = buffer.duplicate();
+        name.limit(nameHeapOffset + end);
+        name.position(nameHeapOffset + nameStart(row));
+        return name.slice().asReadOnlyBuffer();
+    }
+
+    public String getName(final int row) {
+        checkRow(row);
+        final int end = buffer.getInt(nameEndsOffset + 4 * row);
+        if (end < 0) {
+            return null;
+        }
+        final int start = nameStart(row);
+        final byte[] bytes = new byte[end - start];
+        final ByteBuffer name = buffer.duplicate();
+        name.position(nameHeapOffset + start);
+        name.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int nameStart(final int row) {
+        if (row == 0) {
+            return 0;
+        }
+        final int previousEnd = buffer.getInt(nameEndsOffset + 4 * (row - 1));
+        return previousEnd < 0 ? ~previousEnd : previousEnd;
+    }
+
+    /**
+     * Creates the person of the row together with its children.
+     */
+    public Person getPerson(final int row) {
+        final Person person = new Person(getName(row), getAge(row));
+        Map<Integer, Person> created = null;
+        Person parent = person;
+        int child = getChild(row);
+        while (child != NO_CHILD) {
+            if (created == null) {
+                created = new HashMap<>();
+                created.put(row, person);
+            }
+            final Person existing = created.get(child);
+            if (existing != null) {
+                // the children form a cycle
+                parent.setChild(existing);
+                break;
+            }
+            final Person next = new Person(getName(child), getAge(child));
+            created.put(child, next);
+            parent.setChild(next);
+            parent = next;
+            child = getChild(child);
+        }
+        return person;
+    }
+
+    /**
+     * @return a list that creates the person of a row every time it gets read
+     */
+    public List<Person> asList() {
+        return new PersonList();
+    }
+
+    public IntStream ages() {
+        return IntStream.range(0, rows).map(row -> buffer.getInt(HEADER_SIZE + 4 * row));
+    }
+
+    public long sumOfAges() {
+        long sum = 0;
+        for (int row = 0; row < rows; row++) {
+            sum += buffer.getInt(HEADER_SIZE + 4 * row);
+        }
+        return sum;
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + rows);
+        }
+    }
+
+    private final class PersonList extends AbstractList<Person> implements RandomAccess {
+
+        @Override
+        public Person get(final int row) {
+            return getPerson(row);
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package jdk1;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link PersonSnapshot}.
+ */
+public class PersonSnapshotTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final Path file = folder.newFile().toPath();
+        final List<Person> persons = Person.createPersons();
+
+        assertThat(PersonSnapshot.write(persons, file)).isEqualTo(4);
+        final PersonSnapshot snapshot = PersonSnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.getName(1)).isEqualTo("Peter");
+        assertThat(snapshot.getAge(1)).isEqualTo(23);
+        assertThat(snapshot.getChild(1)).isEqualTo(PersonSnapshot.NO_CHILD);
+        assertThat(snapshot.sumOfAges()).isEqualTo(18 + 23 + 23 + 12);
+        assertThat(snapshot.ages().toArray()).asList().containsExactly(18, 23, 23, 12).inOrder();
+        for (int row = 0; row < persons.size(); row++) {
+            final Person person = snapshot.asList().get(row);
+            assertThat(person.getName()).isEqualTo(persons.get(row).getName());
+            assertThat(person.getAge()).isEqualTo(persons.get(row).getAge());
+        }
+        assertThat(Files.size(file)).isEqualTo(PersonSnapshot.HEADER_SIZE + 4 * 12 + "MaxPeterPamelaDavid".length());
+    }
+
+    @Test
+    public void testNamesWithoutCopy() throws IOException {
+        final Path file = folder.newFile().toPath();
+        final List<Person> persons = Arrays.asList(new Person("Jürgen 😀", 40), new Person(null, 1), new Person("", 2),
+                new Person("Max", 3));
+        PersonSnapshot.write(persons, file);
+        final PersonSnapshot snapshot = PersonSnapshot.open(file);
+
+        assertThat(snapshot.getName(0)).isEqualTo("Jürgen 😀");
+        assertThat(snapshot.getName(1)).isNull();
+        assertThat(snapshot.getNameBytes(1)).isNull();
+        assertThat(snapshot.getName(2)).isEmpty();
+        assertThat(snapshot.getName(3)).isEqualTo("Max");
+
+        final ByteBuffer name = snapshot.getNameBytes(0);
+        assertThat(name.remaining()).isEqualTo("Jürgen 😀".getBytes(StandardCharsets.UTF_8).length);
+        assertThat(name.isReadOnly()).isTrue();
+        assertThat(StandardCharsets.UTF_8.decode(name).toString()).isEqualTo("Jürgen 😀");
+    }
+
+    @Test
+    public void testChildren() throws IOException {
+        final Path file = folder.newFile().toPath();
+        final Person grandChild = new Person("Grandchild", 1);
+        final Person child = new Person("Child", 20);
+        child.setChild(grandChild);
+        final Person max = new Person("Max", 45);
+        max.setChild(child);
+        final Person cycle = new Person("Cycle", 30);
+        cycle.setChild(cycle);
+
+        // the grand child is only reachable through the child
+        assertThat(PersonSnapshot.write(Arrays.asList(max, child, cycle), file)).isEqualTo(4);
+        final PersonSnapshot snapshot = PersonSnapshot.open(file);
+
+        assertThat(snapshot.getChild(0)).isEqualTo(1);
+        assertThat(snapshot.getChild(1)).isEqualTo(3);
+        assertThat(snapshot.getName(3)).isEqualTo("Grandchild");
+
+        final Person copy = snapshot.getPerson(0);
+        assertThat(copy.getChild().getName()).isEqualTo("Child");
+        assertThat(copy.getChild().getChild().getAge()).isEqualTo(1);
+        assertThat(copy.getChild().getChild().getChild()).isNull();
+
+        final Person cycleCopy = snapshot.getPerson(2);
+        assertThat(cycleCopy.getChild()).isSameAs(cycleCopy);
+    }
+
+    @Test
+    public void testManyPersons() throws IOException {
+        final Path file = folder.newFile().toPath();
+        final List<Person> persons = Person.createPersons(100_000);
+        persons.get(500).setChild(persons.get(99_999));
+
+        PersonSnapshot.write(persons, file);
+        final PersonSnapshot snapshot = PersonSnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(persons.size());
+        assertThat(snapshot.sumOfAges()).isEqualTo(persons.stream().mapToLong(Person::getAge).sum());
+        for (int row = 0; row < persons.size(); row += 997) {
+            assertThat(snapshot.getName(row)).isEqualTo(persons.get(row).getName());
+        }
+        assertThat(snapshot.getName(persons.size() - 1)).isEqualTo(persons.get(persons.size() - 1).getName());
+        assertThat(snapshot.getPerson(500).getChild().getName()).isEqualTo("Person99999");
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final Path file = folder.newFile().toPath();
+
+        PersonSnapshot.write(new ArrayList<>(), file);
+
+        assertThat(PersonSnapshot.open(file).asList()).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectOtherFiles() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, Collections.nCopies(10, "no snapshot"));
+
+        PersonSnapshot.open(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectTruncatedFiles() throws IOException {
+        final Path file = folder.newFile().toPath();
+        PersonSnapshot.write(Person.createPersons(), file);
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        PersonSnapshot.open(file);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowOutOfBounds() throws IOException {
+        final Path file = folder.newFile().toPath();
+        PersonSnapshot.write(Person.createPersons(), file);
+
+        PersonSnapshot.open(file).getAge(4);
+    }
+}
@@ -0,0 +1,172 @@
+package jdk1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+/**
+ * This class stores persons column by column instead of object by object. All ages
+ * live in one int array and all names in one String array, so aggregations over
+ * the ages only walk a primitive array and never box a value.
+ * <p>
+ * The names are stored as given, a table of persons shares their Strings. The child
+ * relation is not part of the table.
+ */
+public class PersonTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] names;
+    private int[] ages;
+    private int size;
+
+    public PersonTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PersonTable(final int capacity) {
+        names = new String[Math.max(capacity, 1)];
+        ages = new int[Math.max(capacity, 1)];
+    }
+
+    public static PersonTable of(final List<Person> persons) {
+        final PersonTable table = new PersonTable(persons.size());
+        for (Person person : persons) {
+            table.add(person.getName(), person.getAge());
+        }
+        return table;
+    }
+
+    public void add(final String name, final int age) {
+        if (size == ages.length) {
+            final int capacity = size + (size >> 1) + 1;
+            names = Arrays.copyOf(names, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+        }
+        names[size] = name;
+        ages[size] = age;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(final int row) {
+        checkRow(row);
+        return names[row];
+    }
+
+    public int getAge(final int row) {
+        checkRow(row);
+        return ages[row];
+    }
+
+    public IntStream ages() {
+        return Arrays.stream(ages, 0, size);
+    }
+
+    public long sumOfAges() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += ages[i];
+        }
+        return sum;
+    }
+
+    public double averageAge() {
+        return size == 0 ? 0 : (double) sumOfAges() / size;
+    }
+
+    public OptionalInt minAge() {
+        if (size == 0) {
+            return OptionalInt.empty();
+        }
+        int min = ages[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, ages[i]);
+        }
+        return OptionalInt.of(min);
+    }
+
+    /**
+     * Counts the persons per age. The count of age x is at index x of the result,
+     * so the array is as long as the highest age plus one.
+     *
+     * @return the number of persons per age
+     * @throws IllegalStateException    if the table contains a negative age
+     * @throws IllegalArgumentException if an age is {@link Integer#MAX_VALUE}, no array is long enough
+     */
+    public int[] countByAge() {
+        int max = -1;
+        for (int i = 0; i < size; i++) {
+            if (ages[i] < 0) {
+                throw new IllegalStateException("Negative age in row " + i);
+            }
+            if (ages[i] == Integer.MAX_VALUE) {
+                throw ageDoesNotFit(i, Integer.MAX_VALUE);
+            }
+            max = Math.max(max, ages[i]);
+        }
+        return countByAge(new int[max + 1]);
+    }
+
+    /**
+     * Same as {@link #countByAge()} but writes into the given array so the same
+     * array can be used for every call.
+     *
+     * @param counts the array to fill, it must be longer than the highest age
+     * @return the given array
+     * @throws IllegalArgumentException if an age is negative or doesn't fit into the array
+     */
+    public int[] countByAge(final int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < size; i++) {
+            final int age = ages[i];
+            if (age < 0 || age >= counts.length) {
+                throw ageDoesNotFit(i, counts.length);
+            }
+            counts[age]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the rows of all persons with the given age. Together with
+     * {@link #getName(int)} this replaces the lists of a groupingBy.
+     *
+     * @param age the age to look for
+     * @return the matching row numbers in ascending order
+     */
+    public int[] rowsWithAge(final int age) {
+        return IntStream.range(0, size)
+                .filter(row -> ages[row] == age)
+                .toArray();
+    }
+
+    public Person toPerson(final int row) {
+        checkRow(row);
+        return new Person(names[row], ages[row]);
+    }
+
+    public List<Person> toPersons() {
+        final List<Person> persons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            persons.add(new Person(names[i], ages[i]));
+        }
+        return persons;
+    }
+
+    private IllegalArgumentException ageDoesNotFit(final int row, final int length) {
+        return new IllegalArgumentException("The age " + ages[row] + " in row " + row
+                + " doesn't fit into an array of length " + length);
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
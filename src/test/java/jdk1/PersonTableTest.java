@@ -0,0 +1,110 @@
+package jdk1;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the column based {@link PersonTable}.
+ */
+public class PersonTableTest {
+
+    @Test
+    public void testAggregateAges() {
+        final PersonTable table = PersonTable.of(Person.createPersons()); // Max 18, Peter 23, Pamela 23, David 12
+
+        assertThat(table.size()).isEqualTo(4);
+        assertThat(table.sumOfAges()).isEqualTo(76L);
+        assertThat(table.averageAge()).isWithin(0.001).of(19.0);
+        assertThat(table.minAge().getAsInt()).isEqualTo(12);
+        assertThat(table.ages().max().getAsInt()).isEqualTo(23);
+    }
+
+    @Test
+    public void testEmptyTable() {
+        final PersonTable table = new PersonTable();
+
+        assertThat(table.sumOfAges()).isEqualTo(0L);
+        assertThat(table.averageAge()).isWithin(0.001).of(0.0);
+        assertThat(table.minAge().isPresent()).isFalse();
+        assertThat(table.countByAge()).hasLength(0);
+    }
+
+    @Test
+    public void testGroupByAge() {
+        final PersonTable table = PersonTable.of(Person.createPersons());
+
+        final int[] countByAge = table.countByAge();
+        assertThat(countByAge).hasLength(24);
+        assertThat(countByAge[23]).isEqualTo(2);
+        assertThat(countByAge[18]).isEqualTo(1);
+        assertThat(countByAge[20]).isEqualTo(0);
+
+        final int[] rows = table.rowsWithAge(23);
+        assertThat(rows).asList().containsExactly(1, 2).inOrder();
+        assertThat(table.getName(rows[0])).isEqualTo("Peter");
+        assertThat(table.getName(rows[1])).isEqualTo("Pamela");
+    }
+
+    @Test
+    public void testGrow() {
+        final PersonTable table = new PersonTable(1);
+        final String homer = "Homer";
+        table.add(homer, 39);
+        table.add(homer, 40);
+        table.add("Bart", 10);
+
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.getName(0)).isSameAs(homer);
+        assertThat(table.getName(1)).isSameAs(homer);
+        assertThat(table.getAge(2)).isEqualTo(10);
+    }
+
+    @Test
+    public void testCountByAgeRejectsAgesOutsideTheArray() {
+        final PersonTable table = new PersonTable();
+        table.add("Max", 18);
+        table.add("Unborn", -1);
+
+        try {
+            table.countByAge(new int[100]);
+            throw new AssertionError("A negative age can't be counted");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageThat().contains("row 1");
+        }
+    }
+
+    @Test
+    public void testCountByAgeRejectsMaxAge() {
+        final PersonTable table = new PersonTable();
+        table.add("Max", 18);
+        table.add("Immortal", Integer.MAX_VALUE);
+
+        try {
+            table.countByAge();
+            throw new AssertionError("No array is long enough for the age");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageThat().contains("The age " + Integer.MAX_VALUE + " in row 1");
+        }
+    }
+
+    @Test
+    public void testConvertBackToPersons() {
+        final List<Person> persons = Person.createPersons(1000);
+
+        final List<Person> converted = PersonTable.of(persons).toPersons();
+
+        assertThat(converted).hasSize(1000);
+        for (int i = 0; i < persons.size(); i++) {
+            assertThat(converted.get(i).getName()).isEqualTo(persons.get(i).getName());
+            assertThat(converted.get(i).getAge()).isEqualTo(persons.get(i).getAge());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAccessRowOutsideTable() {
+        PersonTable.of(Person.createPersons()).getAge(4);
+    }
+}
@@ -0,0 +1,183 @@
+package jdk8;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * This class counts occurrences per key from many threads at the same time.
+ * <p>
+ * A {@code ConcurrentHashMap<K, Integer>} with {@code merge(key, 1, Integer::sum)} locks
+ * the bin of the key and creates a new Integer for every increment, so all threads that
+ * count the same key wait for each other. Here every key holds a {@link LongAdder} which
+ * spreads the increments over multiple cells and only adds them up on read.
+ * <p>
+ * Like {@link ConcurrentHashMap} null keys are not allowed and throw a
+ * {@link NullPointerException}.
+ *
+ * @param <K> the type of the keys
+ */
+public class ConcurrentCounterMap<K> {
+
+    private final ConcurrentHashMap<K, Counter> counters = new ConcurrentHashMap<>();
+
+    public void increment(final K key) {
+        add(key, 1);
+    }
+
+    public void add(final K key, final long amount) {
+        final Counter counter = counter(key);
+        counter.add(amount);
+        if (counter.closed) {
+            // the counter was reset or removed in the meantime, move what it missed to the new one
+            transfer(key, counter);
+        }
+    }
+
+    /**
+     * Returns the current count of the key. The count is not an atomic snapshot if
+     * other threads increment the key at the same time.
+     *
+     * @param key the key
+     * @return the count or 0 if the key was never counted
+     */
+    public long get(final K key) {
+        final Counter counter = counters.get(Objects.requireNonNull(key));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns the current count and starts the key again at 0. The counter isn't reset in
+     * place like {@link LongAdder#sumThenReset()}, which loses increments that happen
+     * between reading and clearing a cell. It gets swapped for a new one instead, so an
+     * increment that happens during the reset is either part of the result or of the next
+     * count, but never lost.
+     *
+     * @param key the key
+     * @return the count before the reset
+     */
+    public long sumThenReset(final K key) {
+        Objects.requireNonNull(key);
+        while (true) {
+            final Counter counter = counters.get(key);
+            if (counter == null) {
+                return 0;
+            }
+            if (counters.replace(key, counter, new Counter())) {
+                return close(counter);
+            }
+        }
+    }
+
+    /**
+     * Removes the counter of the key and returns its count. An increment that happens
+     * during the remove is either part of the result or counts the key again afterwards.
+     *
+     * @param key the key
+     * @return the count of the removed counter or 0 if the key was never counted
+     */
+    public long remove(final K key) {
+        final Counter counter = counters.remove(Objects.requireNonNull(key));
+        return counter == null ? 0 : close(counter);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public void forEach(final BiConsumer<? super K, Long> action) {
+        counters.forEach((key, counter) -> action.accept(key, counter.sum()));
+    }
+
+    /**
+     * Copies the counts of all keys into a new map. The map can be read without
+     * interfering with the writing threads.
+     *
+     * @return the counts by key
+     */
+    public Map<K, Long> snapshot() {
+        final Map<K, Long> snapshot = new HashMap<>();
+        forEach(snapshot::put);
+        return snapshot;
+    }
+
+    /**
+     * Returns the keys with the highest counts. Only a heap of k entries gets
+     * created, so this also works for maps with many keys.
+     *
+     * @param k the number of keys to return
+     * @return the entries with the highest counts in descending order
+     */
+    public List<Map.Entry<K, Long>> top(final int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        final PriorityQueue<Map.Entry<K, Long>> heap = new PriorityQueue<>(k, Map.Entry.comparingByValue());
+        counters.forEach((key, counter) -> {
+            final long count = counter.sum();
+            if (heap.size() < k) {
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(key, count));
+            } else if (heap.peek().getValue() < count) {
+                heap.poll();
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(key, count));
+            }
+        });
+        final List<Map.Entry<K, Long>> top = new ArrayList<>(heap);
+        top.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        return top;
+    }
+
+    private Counter counter(final K key) {
+        // get first, as computeIfAbsent locks the bin even if the key already exists
+        final Counter counter = counters.get(Objects.requireNonNull(key));
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> new Counter());
+    }
+
+    /**
+     * Marks a counter that is no longer in the map and returns its final count. A writer
+     * that still sees the counter open after adding wrote before the mark, so its amount
+     * is part of the count. A writer that sees it closed moves the amounts that came too
+     * late with {@link #transfer(Object, Counter)}.
+     */
+    private static long close(final Counter counter) {
+        synchronized (counter) {
+            counter.closed = true;
+            counter.reported = counter.sum();
+            return counter.reported;
+        }
+    }
+
+    private void transfer(final K key, final Counter counter) {
+        final long late;
+        synchronized (counter) {
+            late = counter.sum() - counter.reported;
+            counter.reported += late;
+        }
+        if (late != 0) {
+            add(key, late);
+        }
+    }
+
+    /**
+     * A {@link LongAdder} that knows if it was swapped out of the map.
+     */
+    private static final class Counter extends LongAdder {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile boolean closed;
+
+        /**
+         * The part of the sum that was already returned or moved, guarded by the counter.
+         */
+        private long reported;
+    }
+}
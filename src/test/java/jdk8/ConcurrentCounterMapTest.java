@@ -0,0 +1,107 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link ConcurrentCounterMap}.
+ */
+public class ConcurrentCounterMapTest {
+
+    @Test
+    public void testCountFromMultipleThreads() throws InterruptedException {
+        final ConcurrentCounterMap<String> counters = new ConcurrentCounterMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counters.increment("key" + (i % 4));
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counters.size()).isEqualTo(4);
+        assertThat(counters.get("key0")).isEqualTo(20_000L);
+        assertThat(counters.snapshot().values()).containsExactly(20_000L, 20_000L, 20_000L, 20_000L);
+    }
+
+    @Test
+    public void testAddAndReset() {
+        final ConcurrentCounterMap<String> counters = new ConcurrentCounterMap<>();
+        counters.add("requests", 5);
+        counters.increment("requests");
+
+        assertThat(counters.sumThenReset("requests")).isEqualTo(6L);
+        assertThat(counters.get("requests")).isEqualTo(0L);
+        assertThat(counters.get("unknown")).isEqualTo(0L);
+        assertThat(counters.sumThenReset("unknown")).isEqualTo(0L);
+
+        counters.increment("requests");
+        assertThat(counters.remove("requests")).isEqualTo(1L);
+        assertThat(counters.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testResetAndRemoveDontLoseIncrements() throws InterruptedException {
+        final ConcurrentCounterMap<String> counters = new ConcurrentCounterMap<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 250_000; i++) {
+                    counters.increment("requests");
+                }
+            });
+        }
+        executor.shutdown();
+
+        long counted = 0;
+        boolean remove = false;
+        while (!executor.isTerminated()) {
+            counted += remove ? counters.remove("requests") : counters.sumThenReset("requests");
+            remove = !remove;
+        }
+        counted += counters.get("requests");
+
+        assertThat(counted).isEqualTo(1_000_000L);
+    }
+
+    @Test
+    public void testTopKeys() {
+        final ConcurrentCounterMap<String> counters = new ConcurrentCounterMap<>();
+        counters.add("Max", 18);
+        counters.add("Peter", 23);
+        counters.add("Pamela", 24);
+        counters.add("David", 12);
+
+        final List<Map.Entry<String, Long>> top = counters.top(2);
+
+        assertThat(top).hasSize(2);
+        assertThat(top.get(0).getKey()).isEqualTo("Pamela");
+        assertThat(top.get(1).getKey()).isEqualTo("Peter");
+        assertThat(counters.top(10)).hasSize(4);
+        assertThat(counters.top(0)).isEmpty();
+    }
+
+    /**
+     * Same as {@link ConcurrentHashMapTest#testAddNull()}.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() {
+        new ConcurrentCounterMap<String>().increment(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testGetNull() {
+        new ConcurrentCounterMap<String>().get(null);
+    }
+}
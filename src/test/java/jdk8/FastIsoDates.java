@@ -0,0 +1,382 @@
+package jdk8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This class parses and formats ISO-8601 dates like 2017-07-09 and local date times like
+ * 2017-07-09T12:45:50.123 without creating objects.
+ * <p>
+ * {@link DateTimeFormatter#ISO_LOCAL_DATE} creates a map of parsed fields and a
+ * {@link LocalDate} for every call. Here the text gets read directly from a
+ * {@link CharSequence}, a byte array or a {@link ByteBuffer} and turned into the epoch day
+ * or epoch second. Date times are read as UTC. Formatting writes into a buffer of the caller.
+ * <p>
+ * Only years with four digits are supported. Times need hours and minutes, seconds and up
+ * to nine fraction digits are optional like in {@link DateTimeFormatter#ISO_LOCAL_TIME}.
+ * Invalid text throws a {@link DateTimeParseException}.
+ */
+public final class FastIsoDates {
+
+    /**
+     * The length of yyyy-MM-dd.
+     */
+    public static final int DATE_LENGTH = 10;
+
+    /**
+     * The length of yyyy-MM-ddTHH:mm:ss.
+     */
+    public static final int DATE_TIME_LENGTH = 19;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private FastIsoDates() {
+    }
+
+    public static long parseEpochDay(final CharSequence text) {
+        return parseEpochDay(text, 0, text.length());
+    }
+
+    public static long parseEpochDay(final CharSequence text, final int from, final int to) {
+        if (to - from != DATE_LENGTH || text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-') {
+            throw error(text, from, to, "Expected yyyy-MM-dd");
+        }
+        return epochDay(number(text, from, 4), number(text, from + 5, 2), number(text, from + 8, 2), text, from, to);
+    }
+
+    public static long parseEpochDay(final byte[] text, final int from, final int to) {
+        if (to - from != DATE_LENGTH || text[from + 4] != '-' || text[from + 7] != '-') {
+            throw error(text, from, to, "Expected yyyy-MM-dd");
+        }
+        return epochDay(number(text, from, 4), number(text, from + 5, 2), number(text, from + 8, 2), text, from, to);
+    }
+
+    /**
+     * Parses the bytes between the absolute indexes without changing the position of the buffer.
+     *
+     * @param text the ASCII text
+     * @param from the index of the first byte
+     * @param to   the index after the last byte
+     * @return the epoch day
+     */
+    public static long parseEpochDay(final ByteBuffer text, final int from, final int to) {
+        if (text.hasArray()) {
+            return parseEpochDay(text.array(), text.arrayOffset() + from, text.arrayOffset() + to);
+        }
+        return parseEpochDay(new ByteBufferText(text), from, to);
+    }
+
+    public static long parseEpochSecond(final CharSequence text) {
+        return parseEpochSecond(text, 0, text.length());
+    }
+
+    /**
+     * Parses a local date time as UTC. A fraction of the second gets ignored.
+     *
+     * @param text the text
+     * @param from the index of the first char
+     * @param to   the index after the last char
+     * @return the epoch second
+     */
+    public static long parseEpochSecond(final CharSequence text, final int from, final int to) {
+        return Math.floorDiv(parseEpochMilli(text, from, to), 1000);
+    }
+
+    public static long parseEpochSecond(final byte[] text, final int from, final int to) {
+        return Math.floorDiv(parseEpochMilli(text, from, to), 1000);
+    }
+
+    public static long parseEpochSecond(final ByteBuffer text, final int from, final int to) {
+        return Math.floorDiv(parseEpochMilli(text, from, to), 1000);
+    }
+
+    public static long parseEpochMilli(final CharSequence text) {
+        return parseEpochMilli(text, 0, text.length());
+    }
+
+    /**
+     * Parses a local date time as UTC. Fraction digits after the milliseconds get ignored.
+     *
+     * @param text the text
+     * @param from the index of the first char
+     * @param to   the index after the last char
+     * @return the epoch milli
+     */
+    public static long parseEpochMilli(final CharSequence text, final int from, final int to) {
+        final int length = to - from;
+        if (length < 16 || text.charAt(from + 10) != 'T' || text.charAt(from + 13) != ':'
+                || (length > 16 && (length < 19 || text.charAt(from + 16) != ':'))
+                || (length > 19 && text.charAt(from + 19) != '.')) {
+            throw error(text, from, to, "Expected yyyy-MM-ddTHH:mm[:ss[.SSS]]");
+        }
+        final long epochDay = parseEpochDay(text, from, from + DATE_LENGTH);
+        final int second = length > 16 ? number(text, from + 17, 2) : 0;
+        final int millis = length > 19 ? fraction(text, from + 20, to) : 0;
+        return epochMilli(epochDay, number(text, from + 11, 2), number(text, from + 14, 2), second, millis, text, from, to);
+    }
+
+    public static long parseEpochMilli(final byte[] text, final int from, final int to) {
+        final int length = to - from;
+        if (length < 16 || text[from + 10] != 'T' || text[from + 13] != ':'
+                || (length > 16 && (length < 19 || text[from + 16] != ':'))
+                || (length > 19 && text[from + 19] != '.')) {
+            throw error(text, from, to, "Expected yyyy-MM-ddTHH:mm[:ss[.SSS]]");
+        }
+        final long epochDay = parseEpochDay(text, from, from + DATE_LENGTH);
+        final int second = length > 16 ? number(text, from + 17, 2) : 0;
+        final int millis = length > 19 ? fraction(text, from + 20, to) : 0;
+        return epochMilli(epochDay, number(text, from + 11, 2), number(text, from + 14, 2), second, millis, text, from, to);
+    }
+
+    public static long parseEpochMilli(final ByteBuffer text, final int from, final int to) {
+        if (text.hasArray()) {
+            return parseEpochMilli(text.array(), text.arrayOffset() + from, text.arrayOffset() + to);
+        }
+        return parseEpochMilli(new ByteBufferText(text), from, to);
+    }
+
+    public static LocalDate parseLocalDate(final CharSequence text) {
+        return LocalDate.ofEpochDay(parseEpochDay(text));
+    }
+
+    public static LocalDateTime parseLocalDateTime(final CharSequence text) {
+        final long epochMilli = parseEpochMilli(text);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, 1000),
+                (int) Math.floorMod(epochMilli, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes the date as yyyy-MM-dd.
+     *
+     * @param epochDay the epoch day, its year must have four digits
+     * @param buffer   the buffer to write into
+     * @param offset   the index of the first char
+     * @return the index after the last written char
+     */
+    public static int formatDate(final long epochDay, final char[] buffer, final int offset) {
+        final int date = packedDate(epochDay);
+        digits(year(date), 4, buffer, offset);
+        buffer[offset + 4] = '-';
+        digits(date >>> 5 & 0xf, 2, buffer, offset + 5);
+        buffer[offset + 7] = '-';
+        digits(date & 0x1f, 2, buffer, offset + 8);
+        return offset + DATE_LENGTH;
+    }
+
+    /**
+     * Writes the date time as yyyy-MM-ddTHH:mm:ss.
+     *
+     * @param epochSecond the epoch second, read as UTC
+     * @param buffer      the buffer to write into
+     * @param offset      the index of the first char
+     * @return the index after the last written char
+     */
+    public static int formatDateTime(final long epochSecond, final char[] buffer, final int offset) {
+        final int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        formatDate(Math.floorDiv(epochSecond, SECONDS_PER_DAY), buffer, offset);
+        buffer[offset + 10] = 'T';
+        digits(secondOfDay / 3600, 2, buffer, offset + 11);
+        buffer[offset + 13] = ':';
+        digits(secondOfDay / 60 % 60, 2, buffer, offset + 14);
+        buffer[offset + 16] = ':';
+        digits(secondOfDay % 60, 2, buffer, offset + 17);
+        return offset + DATE_TIME_LENGTH;
+    }
+
+    /**
+     * Same as {@link #formatDate(long, char[], int)} for ASCII bytes.
+     */
+    public static int formatDate(final long epochDay, final byte[] buffer, final int offset) {
+        final int date = packedDate(epochDay);
+        digits(year(date), 4, buffer, offset);
+        buffer[offset + 4] = '-';
+        digits(date >>> 5 & 0xf, 2, buffer, offset + 5);
+        buffer[offset + 7] = '-';
+        digits(date & 0x1f, 2, buffer, offset + 8);
+        return offset + DATE_LENGTH;
+    }
+
+    /**
+     * Same as {@link #formatDateTime(long, char[], int)} for ASCII bytes.
+     */
+    public static int formatDateTime(final long epochSecond, final byte[] buffer, final int offset) {
+        final int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        formatDate(Math.floorDiv(epochSecond, SECONDS_PER_DAY), buffer, offset);
+        buffer[offset + 10] = 'T';
+        digits(secondOfDay / 3600, 2, buffer, offset + 11);
+        buffer[offset + 13] = ':';
+        digits(secondOfDay / 60 % 60, 2, buffer, offset + 14);
+        buffer[offset + 16] = ':';
+        digits(secondOfDay % 60, 2, buffer, offset + 17);
+        return offset + DATE_TIME_LENGTH;
+    }
+
+    /**
+     * Calculates year, month and day of an epoch day with the civil from days algorithm of
+     * Howard Hinnant, http://howardhinnant.github.io/date_algorithms.html
+     *
+     * @param epochDay the epoch day
+     * @return the year in the upper bits, then 4 bits month and 5 bits day
+     */
+    static int packedDate(final long epochDay) {
+        final long days = epochDay + 719_468;
+        final long era = Math.floorDiv(days, 146_097);
+        final long dayOfEra = days - era * 146_097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long monthIndex = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        final int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return year << 9 | month << 5 | day;
+    }
+
+    /**
+     * The inverse of {@link #packedDate(long)}, days from civil.
+     */
+    static long epochDay(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final long era = Math.floorDiv(y, 400);
+        final long yearOfEra = y - era * 400;
+        final long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int year(final int packedDate) {
+        final int year = packedDate >> 9;
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year must have four digits: " + year);
+        }
+        return year;
+    }
+
+    private static long epochDay(final int year, final int month, final int day, final Object text, final int from, final int to) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw error(text, from, to, "Invalid date");
+        }
+        return epochDay(year, month, day);
+    }
+
+    private static long epochMilli(final long epochDay, final int hour, final int minute, final int second, final int millis,
+                                   final Object text, final int from, final int to) {
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            throw error(text, from, to, "Invalid time");
+        }
+        return (epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second) * 1000 + millis;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @return the number or -1 if there is a char that's not a digit
+     */
+    private static int number(final CharSequence text, final int index, final int length) {
+        int value = 0;
+        for (int i = index; i < index + length; i++) {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int number(final byte[] text, final int index, final int length) {
+        int value = 0;
+        for (int i = index; i < index + length; i++) {
+            final int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the milliseconds of 1 to 9 fraction digits or -1 if they are invalid
+     */
+    private static int fraction(final CharSequence text, final int from, final int to) {
+        final int length = to - from;
+        if (length < 1 || length > 9 || number(text, from, length) < 0) {
+            return -1;
+        }
+        final int millis = number(text, from, Math.min(3, length));
+        return length >= 3 ? millis : millis * (length == 1 ? 100 : 10);
+    }
+
+    private static int fraction(final byte[] text, final int from, final int to) {
+        final int length = to - from;
+        if (length < 1 || length > 9 || number(text, from, length) < 0) {
+            return -1;
+        }
+        final int millis = number(text, from, Math.min(3, length));
+        return length >= 3 ? millis : millis * (length == 1 ? 100 : 10);
+    }
+
+    private static void digits(final int value, final int length, final char[] buffer, final int offset) {
+        int remaining = value;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+    }
+
+    private static void digits(final int value, final int length, final byte[] buffer, final int offset) {
+        int remaining = value;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+    }
+
+    private static DateTimeParseException error(final Object text, final int from, final int to, final String message) {
+        final String parsed = text instanceof byte[]
+                ? new String((byte[]) text, from, Math.max(0, to - from), StandardCharsets.US_ASCII)
+                : ((CharSequence) text).subSequence(from, Math.max(from, to)).toString();
+        return new DateTimeParseException("Text '" + parsed + "' could not be parsed: " + message, parsed, 0);
+    }
+
+    /**
+     * A view on a buffer without array, e.g. a direct buffer.
+     */
+    private static final class ByteBufferText implements CharSequence {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferText(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (buffer.get(index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            final StringBuilder text = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                text.append(charAt(i));
+            }
+            return text;
+        }
+    }
+}
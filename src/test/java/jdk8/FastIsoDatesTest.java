@@ -0,0 +1,108 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link FastIsoDates} against the {@link DateTimeFormatter}.
+ */
+public class FastIsoDatesTest {
+
+    @Test
+    public void testParseDate() {
+        assertThat(FastIsoDates.parseLocalDate("2017-07-09")).isEqualTo(LocalDate.of(2017, 7, 9));
+        assertThat(FastIsoDates.parseEpochDay("1970-01-01")).isEqualTo(0L);
+        assertThat(FastIsoDates.parseEpochDay("1969-12-31")).isEqualTo(-1L);
+        assertThat(FastIsoDates.parseEpochDay("2016-02-29")).isEqualTo(LocalDate.of(2016, 2, 29).toEpochDay());
+    }
+
+    @Test
+    public void testParseEveryDayLikeTheFormatter() {
+        final char[] buffer = new char[FastIsoDates.DATE_LENGTH];
+        for (long epochDay = LocalDate.of(1600, 1, 1).toEpochDay(); epochDay < LocalDate.of(2400, 1, 1).toEpochDay(); epochDay++) {
+            final String expected = LocalDate.ofEpochDay(epochDay).format(DateTimeFormatter.ISO_LOCAL_DATE);
+
+            FastIsoDates.formatDate(epochDay, buffer, 0);
+
+            assertThat(new String(buffer)).isEqualTo(expected);
+            assertThat(FastIsoDates.parseEpochDay(expected)).isEqualTo(epochDay);
+        }
+    }
+
+    @Test
+    public void testParseDateTime() {
+        assertThat(FastIsoDates.parseLocalDateTime("2016-02-28T12:45:50"))
+                .isEqualTo(LocalDateTime.of(2016, 2, 28, 12, 45, 50));
+        assertThat(FastIsoDates.parseLocalDateTime("2016-02-28T12:45"))
+                .isEqualTo(LocalDateTime.of(2016, 2, 28, 12, 45));
+        assertThat(FastIsoDates.parseLocalDateTime("2016-02-28T12:45:50.1"))
+                .isEqualTo(LocalDateTime.of(2016, 2, 28, 12, 45, 50, 100_000_000));
+        assertThat(FastIsoDates.parseLocalDateTime("2016-02-28T12:45:50.123456789"))
+                .isEqualTo(LocalDateTime.of(2016, 2, 28, 12, 45, 50, 123_000_000));
+        assertThat(FastIsoDates.parseEpochSecond("1969-12-31T23:59:59.5")).isEqualTo(-1L);
+    }
+
+    @Test
+    public void testParseRangesOfBytes() {
+        final String line = "id=1;date=2017-07-09T10:15:30;";
+        final byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        final long expected = LocalDateTime.of(2017, 7, 9, 10, 15, 30).toEpochSecond(ZoneOffset.UTC);
+
+        assertThat(FastIsoDates.parseEpochSecond(line, 10, 29)).isEqualTo(expected);
+        assertThat(FastIsoDates.parseEpochSecond(bytes, 10, 29)).isEqualTo(expected);
+        assertThat(FastIsoDates.parseEpochSecond(ByteBuffer.wrap(bytes), 10, 29)).isEqualTo(expected);
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        assertThat(FastIsoDates.parseEpochSecond(direct, 10, 29)).isEqualTo(expected);
+        assertThat(FastIsoDates.parseEpochDay(direct, 10, 20)).isEqualTo(LocalDate.of(2017, 7, 9).toEpochDay());
+    }
+
+    /**
+     * See {@link DateTimeTest#testAddNegativeDurationAndPrintOut()}.
+     */
+    @Test
+    public void testFormatIntoBuffer() {
+        final byte[] buffer = new byte[32];
+        final long epochSecond = LocalDateTime.of(2017, 7, 9, 8, 5, 3).toEpochSecond(ZoneOffset.UTC);
+
+        final int end = FastIsoDates.formatDateTime(epochSecond, buffer, 2);
+
+        assertThat(end).isEqualTo(21);
+        assertThat(new String(buffer, 2, end - 2, StandardCharsets.US_ASCII)).isEqualTo("2017-07-09T08:05:03");
+
+        final char[] chars = new char[FastIsoDates.DATE_LENGTH];
+        FastIsoDates.formatDate(LocalDate.of(2017, 7, 5).toEpochDay(), chars, 0);
+        assertThat(new String(chars)).isEqualTo("2017-07-05");
+    }
+
+    @Test
+    public void testRejectInvalidText() {
+        for (String invalid : new String[]{"2017-13-01", "2017-02-29", "2017-7-09", "2017/07/09", "2017-07-0x", "20170709xx"}) {
+            try {
+                FastIsoDates.parseEpochDay(invalid);
+                throw new AssertionError("Expected an exception for " + invalid);
+            } catch (DateTimeParseException e) {
+                assertThat(e.getParsedString()).isEqualTo(invalid);
+            }
+        }
+        for (String invalid : new String[]{"2017-07-09T24:00", "2017-07-09T10:60", "2017-07-09 10:15", "2017-07-09T10:15:3",
+                "2017-07-09T10:15:30.", "2017-07-09T10:15:30.1234567890", "2017-07-09T10:15:30,1"}) {
+            try {
+                FastIsoDates.parseEpochMilli(invalid);
+                throw new AssertionError("Expected an exception for " + invalid);
+            } catch (DateTimeParseException e) {
+                assertThat(e.getParsedString()).isEqualTo(invalid);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package jdk8;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class wraps a stream and measures every stage of the pipeline, instead of counting
+ * the calls by hand like in {@link StreamsTest#executionOrderOfIntermediateOperations()}.
+ * <p>
+ * For every stage the elements going in and out are counted. The time of map and filter
+ * functions is only measured for a random sample of the calls and extrapolated, so the
+ * overhead stays low. The source remembers if it was read to the end, so a pipeline that
+ * stopped early (see {@link StreamsTest#testNumberOfCalls()}) is marked as short-circuited.
+ * <p>
+ * After the terminal operation the numbers are added to a {@link ConcurrentCounterMap}
+ * under keys like "pipeline.map[0].in", and are available with {@link #report()}. A map
+ * stage with many elements in front of a filter with few elements out shows a pipeline
+ * that should filter first.
+ *
+ * @param <T> the type of the elements
+ */
+public final class InstrumentedStream<T> {
+
+    static final int DEFAULT_SAMPLE_RATE = 64;
+
+    private final Report report;
+    private final Stream<T> stream;
+
+    private InstrumentedStream(final Report report, final Stream<T> stream) {
+        this.report = report;
+        this.stream = stream;
+    }
+
+    /**
+     * @param pipeline the name of the pipeline, the prefix of all metric keys
+     * @param source   the stream to measure
+     * @param registry receives the metrics after the terminal operation
+     * @param <T>      the type of the elements
+     * @return the instrumented stream
+     */
+    public static <T> InstrumentedStream<T> of(final String pipeline, final Stream<T> source,
+                                               final ConcurrentCounterMap<String> registry) {
+        return of(pipeline, source, registry, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param sampleRate measure the time of one in this many calls, 1 measures every call
+     */
+    static <T> InstrumentedStream<T> of(final String pipeline, final Stream<T> source,
+                                        final ConcurrentCounterMap<String> registry, final int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        final Report report = new Report(pipeline, registry, sampleRate);
+        final Stream<T> counted = StreamSupport.stream(new SourceSpliterator<>(source.spliterator(), report),
+                source.isParallel());
+        return new InstrumentedStream<>(report, counted.onClose(source::close));
+    }
+
+    public <R> InstrumentedStream<R> map(final Function<? super T, ? extends R> mapper) {
+        final Stage stage = report.addStage("map");
+        return new InstrumentedStream<>(report, stream.map(element -> {
+            stage.in.increment();
+            final R result;
+            if (stage.sample()) {
+                final long start = System.nanoTime();
+                result = mapper.apply(element);
+                stage.addSample(System.nanoTime() - start);
+            } else {
+                result = mapper.apply(element);
+            }
+            stage.out.increment();
+            return result;
+        }));
+    }
+
+    public InstrumentedStream<T> filter(final Predicate<? super T> predicate) {
+        final Stage stage = report.addStage("filter");
+        return new InstrumentedStream<>(report, stream.filter(element -> {
+            stage.in.increment();
+            final boolean matches;
+            if (stage.sample()) {
+                final long start = System.nanoTime();
+                matches = predicate.test(element);
+                stage.addSample(System.nanoTime() - start);
+            } else {
+                matches = predicate.test(element);
+            }
+            if (matches) {
+                stage.out.increment();
+            }
+            return matches;
+        }));
+    }
+
+    public InstrumentedStream<T> sorted() {
+        return counted("sorted", Stream::sorted);
+    }
+
+    public InstrumentedStream<T> sorted(final Comparator<? super T> comparator) {
+        return counted("sorted", s -> s.sorted(comparator));
+    }
+
+    public InstrumentedStream<T> distinct() {
+        return counted("distinct", Stream::distinct);
+    }
+
+    public InstrumentedStream<T> limit(final long maxSize) {
+        return counted("limit", s -> s.limit(maxSize));
+    }
+
+    public InstrumentedStream<T> skip(final long n) {
+        return counted("skip", s -> s.skip(n));
+    }
+
+    public InstrumentedStream<T> parallel() {
+        return new InstrumentedStream<>(report, stream.parallel());
+    }
+
+    public InstrumentedStream<T> sequential() {
+        return new InstrumentedStream<>(report, stream.sequential());
+    }
+
+    /**
+     * Counts the elements before and after an operation that doesn't take a function per element.
+     */
+    private InstrumentedStream<T> counted(final String name, final Function<Stream<T>, Stream<T>> operation) {
+        final Stage stage = report.addStage(name);
+        final Stream<T> result = operation.apply(stream.peek(element -> stage.in.increment()));
+        return new InstrumentedStream<>(report, result.peek(element -> stage.out.increment()));
+    }
+
+    /**
+     * Runs any terminal operation on the wrapped stream, e.g. {@code s -> s.mapToInt(...).sum()},
+     * and exports the metrics afterwards.
+     *
+     * @param operation the terminal operation
+     * @param <R>       the type of the result
+     * @return the result of the operation
+     */
+    public <R> R terminate(final Function<? super Stream<T>, R> operation) {
+        try {
+            return operation.apply(stream);
+        } finally {
+            stream.close();
+            report.export();
+        }
+    }
+
+    public void forEach(final Consumer<? super T> action) {
+        terminate(s -> {
+            s.forEach(action);
+            return null;
+        });
+    }
+
+    public <R, A> R collect(final Collector<? super T, A, R> collector) {
+        return terminate(s -> s.collect(collector));
+    }
+
+    public T reduce(final T identity, final BinaryOperator<T> accumulator) {
+        return terminate(s -> s.reduce(identity, accumulator));
+    }
+
+    public long count() {
+        return terminate(Stream::count);
+    }
+
+    public boolean anyMatch(final Predicate<? super T> predicate) {
+        return terminate(s -> s.anyMatch(predicate));
+    }
+
+    public boolean allMatch(final Predicate<? super T> predicate) {
+        return terminate(s -> s.allMatch(predicate));
+    }
+
+    public boolean noneMatch(final Predicate<? super T> predicate) {
+        return terminate(s -> s.noneMatch(predicate));
+    }
+
+    public Optional<T> findFirst() {
+        return terminate(Stream::findFirst);
+    }
+
+    /**
+     * @return the numbers of the pipeline, complete after the terminal operation
+     */
+    public Report report() {
+        return report;
+    }
+
+    /**
+     * The numbers of one pipeline run.
+     */
+    public static final class Report {
+
+        private final String pipeline;
+        private final ConcurrentCounterMap<String> registry;
+        private final int sampleRate;
+        private final List<Stage> stages = new ArrayList<>();
+        private final LongAdder sourceElements = new LongAdder();
+
+        /**
+         * The number of source spliterators that were not read to the end.
+         */
+        private final AtomicInteger unfinishedParts = new AtomicInteger(1);
+
+        private Report(final String pipeline, final ConcurrentCounterMap<String> registry, final int sampleRate) {
+            this.pipeline = pipeline;
+            this.registry = registry;
+            this.sampleRate = sampleRate;
+        }
+
+        private Stage addStage(final String operation) {
+            final Stage stage = new Stage(operation + "[" + stages.size() + "]", sampleRate);
+            stages.add(stage);
+            return stage;
+        }
+
+        private void export() {
+            registry.increment(pipeline + ".runs");
+            registry.add(pipeline + ".source.out", sourceElements.sum());
+            if (isShortCircuited()) {
+                registry.increment(pipeline + ".shortCircuited");
+            }
+            for (Stage stage : stages) {
+                final String prefix = pipeline + "." + stage.name;
+                registry.add(prefix + ".in", stage.getIn());
+                registry.add(prefix + ".out", stage.getOut());
+                registry.add(prefix + ".nanos", stage.getEstimatedNanos());
+            }
+        }
+
+        public String getPipeline() {
+            return pipeline;
+        }
+
+        public List<Stage> getStages() {
+            return Collections.unmodifiableList(stages);
+        }
+
+        public long getSourceElements() {
+            return sourceElements.sum();
+        }
+
+        /**
+         * @return true if the terminal operation finished before the whole source was read
+         */
+        public boolean isShortCircuited() {
+            return unfinishedParts.get() > 0;
+        }
+    }
+
+    /**
+     * The numbers of one operation of the pipeline.
+     */
+    public static final class Stage {
+
+        private final String name;
+        private final int sampleRate;
+        private final LongAdder in = new LongAdder();
+        private final LongAdder out = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        private Stage(final String name, final int sampleRate) {
+            this.name = name;
+            this.sampleRate = sampleRate;
+        }
+
+        private boolean sample() {
+            return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+        }
+
+        private void addSample(final long nanos) {
+            samples.increment();
+            sampledNanos.add(nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getIn() {
+            return in.sum();
+        }
+
+        public long getOut() {
+            return out.sum();
+        }
+
+        /**
+         * @return the share of elements that passed this stage, 1 for maps
+         */
+        public double getSelectivity() {
+            final long in = getIn();
+            return in == 0 ? 1 : (double) getOut() / in;
+        }
+
+        /**
+         * @return the measured time of the samples extrapolated to all calls, 0 without samples
+         */
+        public long getEstimatedNanos() {
+            final long sampleCount = samples.sum();
+            return sampleCount == 0 ? 0 : (long) ((double) sampledNanos.sum() / sampleCount * getIn());
+        }
+
+        @Override
+        public String toString() {
+            return name + " in=" + getIn() + " out=" + getOut();
+        }
+    }
+
+    /**
+     * Counts the elements of the source and notices when a part of it is read to the end.
+     */
+    private static final class SourceSpliterator<T> implements Spliterator<T> {
+
+        private final Spliterator<T> source;
+        private final Report report;
+        private boolean finished;
+
+        private SourceSpliterator(final Spliterator<T> source, final Report report) {
+            this.source = source;
+            this.report = report;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            final boolean advanced = source.tryAdvance(element -> {
+                report.sourceElements.increment();
+                action.accept(element);
+            });
+            if (!advanced) {
+                finish();
+            }
+            return advanced;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            source.forEachRemaining(element -> {
+                report.sourceElements.increment();
+                action.accept(element);
+            });
+            finish();
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                report.unfinishedParts.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final Spliterator<T> prefix = source.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            report.unfinishedParts.incrementAndGet();
+            return new SourceSpliterator<>(prefix, report);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics();
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link InstrumentedStream}.
+ */
+public class InstrumentedStreamTest {
+
+    private final ConcurrentCounterMap<String> registry = new ConcurrentCounterMap<>();
+
+    /**
+     * Same as {@link StreamsTest#executionOrderOfIntermediateOperations()} without counting by hand.
+     */
+    @Test
+    public void testCountMapBeforeFilter() {
+        final InstrumentedStream<String> mapFirst = InstrumentedStream.of("mapFirst", Stream.of("d1", "a1", "a2", "c1"), registry)
+                .map(String::toUpperCase)
+                .filter(s -> s.startsWith("A"));
+        final List<String> result = mapFirst.collect(Collectors.toList());
+
+        assertThat(result).containsExactly("A1", "A2").inOrder();
+        final List<InstrumentedStream.Stage> stages = mapFirst.report().getStages();
+        assertThat(stages.get(0).getName()).isEqualTo("map[0]");
+        assertThat(stages.get(0).getIn()).isEqualTo(4);
+        assertThat(stages.get(1).getName()).isEqualTo("filter[1]");
+        assertThat(stages.get(1).getIn()).isEqualTo(4);
+        assertThat(stages.get(1).getOut()).isEqualTo(2);
+        assertThat(stages.get(1).getSelectivity()).isWithin(0.001).of(0.5);
+        assertThat(mapFirst.report().isShortCircuited()).isFalse();
+
+        InstrumentedStream.of("filterFirst", Stream.of("d1", "a1", "a2", "c1"), registry)
+                .filter(s -> s.startsWith("a"))
+                .map(String::toUpperCase)
+                .forEach(s -> {
+                });
+
+        assertThat(registry.get("mapFirst.map[0].in")).isEqualTo(4);
+        assertThat(registry.get("filterFirst.filter[0].out")).isEqualTo(2);
+        assertThat(registry.get("filterFirst.map[1].in")).isEqualTo(2);
+        assertThat(registry.get("filterFirst.source.out")).isEqualTo(4);
+        assertThat(registry.get("filterFirst.runs")).isEqualTo(1);
+    }
+
+    /**
+     * Same as {@link StreamsTest#testNumberOfCalls()}.
+     */
+    @Test
+    public void testDetectShortCircuit() {
+        final InstrumentedStream<Integer> all = InstrumentedStream.of("all", IntStream.range(3, 8).boxed(), registry)
+                .map(x -> x * 2);
+        assertThat(all.noneMatch(x -> x % 2 != 0)).isTrue();
+        assertThat(all.report().isShortCircuited()).isFalse();
+        assertThat(all.report().getSourceElements()).isEqualTo(5);
+
+        final InstrumentedStream<Integer> first = InstrumentedStream.of("first", IntStream.range(3, 8).boxed(), registry)
+                .map(x -> x * 2);
+        assertThat(first.noneMatch(x -> x % 2 == 0)).isFalse();
+        assertThat(first.report().isShortCircuited()).isTrue();
+        assertThat(first.report().getSourceElements()).isEqualTo(1);
+        assertThat(registry.get("first.shortCircuited")).isEqualTo(1);
+        assertThat(registry.get("all.shortCircuited")).isEqualTo(0);
+    }
+
+    @Test
+    public void testLimitAndSorted() {
+        final InstrumentedStream<Integer> stream = InstrumentedStream.of("limit", Stream.iterate(1, e -> e + 1), registry)
+                .filter(e -> e % 2 == 0)
+                .limit(5)
+                .sorted((a, b) -> b - a);
+
+        assertThat(stream.collect(Collectors.toList())).containsExactly(10, 8, 6, 4, 2).inOrder();
+        assertThat(stream.report().isShortCircuited()).isTrue();
+        assertThat(stream.report().getStages().get(1).getOut()).isEqualTo(5);
+        assertThat(stream.report().getStages().get(2).getName()).isEqualTo("sorted[2]");
+        assertThat(stream.report().getStages().get(2).getIn()).isEqualTo(5);
+    }
+
+    @Test
+    public void testParallel() {
+        final InstrumentedStream<Integer> stream = InstrumentedStream.of("parallel", IntStream.range(0, 100_000).boxed(), registry)
+                .parallel()
+                .map(x -> x * 2)
+                .filter(x -> x % 3 == 0);
+
+        final long sum = stream.terminate(s -> s.mapToLong(x -> x).sum());
+
+        assertThat(sum).isEqualTo(IntStream.range(0, 100_000).mapToLong(x -> x * 2).filter(x -> x % 3 == 0).sum());
+        assertThat(stream.report().getSourceElements()).isEqualTo(100_000);
+        assertThat(stream.report().getStages().get(0).getIn()).isEqualTo(100_000);
+        assertThat(stream.report().isShortCircuited()).isFalse();
+    }
+
+    @Test
+    public void testSampledTime() {
+        final InstrumentedStream<Integer> stream = InstrumentedStream.of("time", IntStream.range(0, 10).boxed(), registry, 1)
+                .map(x -> {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return x;
+                });
+
+        assertThat(stream.count()).isEqualTo(10);
+        assertThat(stream.report().getStages().get(0).getEstimatedNanos()).isAtLeast(10_000_000L);
+        assertThat(registry.get("time.map[0].nanos")).isAtLeast(10_000_000L);
+    }
+}
@@ -0,0 +1,348 @@
+package jdk8;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * This class contains groupingBy collectors for int keys. They can replace
+ * {@link Collectors#groupingBy(Function)} with a single line:
+ * <pre>
+ * persons.stream().collect(Collectors.groupingBy(Person::getAge, Collectors.counting()));
+ * persons.stream().collect(IntGroupingCollectors.groupingByInt(Person::getAge, IntGroupingCollectors.counting()));
+ * </pre>
+ * The keys are only boxed once per group when the result map gets created. While
+ * collecting, the groups are kept in a table with int keys which is a plain array
+ * as long as all keys are between 0 and 255 (e.g. ages) and an open addressing hash
+ * table otherwise. The {@link #counting()} and {@link #summingInt(ToIntFunction)}
+ * downstreams add into a long per group instead of a boxed value.
+ */
+public final class IntGroupingCollectors {
+
+    private IntGroupingCollectors() {
+    }
+
+    public static <T> Collector<T, ?, Map<Integer, List<T>>> groupingByInt(final ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T, A, D> Collector<T, ?, Map<Integer, D>> groupingByInt(
+            final ToIntFunction<? super T> classifier,
+            final Collector<? super T, A, D> downstream) {
+        if (downstream instanceof LongCollector) {
+            return groupingByIntToLong(classifier, (LongCollector<? super T, D>) downstream);
+        }
+
+        final Supplier<A> downstreamSupplier = downstream.supplier();
+        final BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        final BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        final Function<A, D> downstreamFinisher = downstream.finisher();
+
+        final BiConsumer<IntKeyTable, T> accumulator = (table, element) -> {
+            final int slot = table.slot(classifier.applyAsInt(element));
+            Object container = table.objects[slot];
+            if (container == null) {
+                container = downstreamSupplier.get();
+                table.objects[slot] = container;
+            }
+            downstreamAccumulator.accept((A) container, element);
+        };
+
+        final BinaryOperator<IntKeyTable> combiner = (left, right) -> {
+            // merge the smaller table into the bigger one but keep the encounter order for the downstream
+            final boolean mergeIntoLeft = left.size() >= right.size();
+            final IntKeyTable target = mergeIntoLeft ? left : right;
+            final IntKeyTable source = mergeIntoLeft ? right : left;
+            for (int i = 0; i < source.capacity(); i++) {
+                if (source.isUsed(i)) {
+                    final int slot = target.slot(source.keyAt(i));
+                    final A existing = (A) target.objects[slot];
+                    final A other = (A) source.objects[i];
+                    if (existing == null) {
+                        target.objects[slot] = other;
+                    } else {
+                        target.objects[slot] = mergeIntoLeft
+                                ? downstreamCombiner.apply(existing, other)
+                                : downstreamCombiner.apply(other, existing);
+                    }
+                }
+            }
+            return target;
+        };
+
+        final Function<IntKeyTable, Map<Integer, D>> finisher = table -> {
+            final Map<Integer, D> result = new HashMap<>(mapCapacity(table.size()));
+            for (int i = 0; i < table.capacity(); i++) {
+                if (table.isUsed(i)) {
+                    result.put(table.keyAt(i), downstreamFinisher.apply((A) table.objects[i]));
+                }
+            }
+            return result;
+        };
+
+        return Collector.of(() -> new IntKeyTable(true), accumulator, combiner, finisher);
+    }
+
+    private static <T, D> Collector<T, ?, Map<Integer, D>> groupingByIntToLong(
+            final ToIntFunction<? super T> classifier,
+            final LongCollector<? super T, D> downstream) {
+        final BiConsumer<IntKeyTable, T> accumulator = (table, element) -> {
+            final int slot = table.slot(classifier.applyAsInt(element));
+            table.longs[slot] += downstream.mapper.applyAsLong(element);
+        };
+
+        final BinaryOperator<IntKeyTable> combiner = (left, right) -> {
+            final IntKeyTable target = left.size() >= right.size() ? left : right;
+            final IntKeyTable source = target == left ? right : left;
+            for (int i = 0; i < source.capacity(); i++) {
+                if (source.isUsed(i)) {
+                    final int slot = target.slot(source.keyAt(i));
+                    target.longs[slot] += source.longs[i];
+                }
+            }
+            return target;
+        };
+
+        final Function<IntKeyTable, Map<Integer, D>> finisher = table -> {
+            final Map<Integer, D> result = new HashMap<>(mapCapacity(table.size()));
+            for (int i = 0; i < table.capacity(); i++) {
+                if (table.isUsed(i)) {
+                    result.put(table.keyAt(i), downstream.result.apply(table.longs[i]));
+                }
+            }
+            return result;
+        };
+
+        return Collector.of(() -> new IntKeyTable(false), accumulator, combiner, finisher);
+    }
+
+    /**
+     * Same as {@link Collectors#toList()}.
+     *
+     * @param <T> the type of the elements
+     * @return a collector which collects all elements into a list
+     */
+    public static <T> Collector<T, ?, List<T>> toList() {
+        return Collectors.toList();
+    }
+
+    /**
+     * Same as {@link Collectors#counting()} but without boxing when used as downstream
+     * of {@link #groupingByInt(ToIntFunction, Collector)}.
+     *
+     * @param <T> the type of the elements
+     * @return a collector which counts the elements
+     */
+    public static <T> Collector<T, ?, Long> counting() {
+        return new LongCollector<>(element -> 1L, Long::valueOf);
+    }
+
+    /**
+     * Same as {@link Collectors#summingInt(ToIntFunction)} but without boxing when used
+     * as downstream of {@link #groupingByInt(ToIntFunction, Collector)}.
+     *
+     * @param mapper the function that extracts the value to sum up
+     * @param <T>    the type of the elements
+     * @return a collector which sums up the extracted values
+     */
+    public static <T> Collector<T, ?, Integer> summingInt(final ToIntFunction<? super T> mapper) {
+        return new LongCollector<>(mapper::applyAsInt, sum -> (int) sum);
+    }
+
+    private static int mapCapacity(final int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    /**
+     * A collector that adds up a long for every element. It also works on its own but
+     * {@link #groupingByInt(ToIntFunction, Collector)} adds directly into the group table.
+     */
+    private static final class LongCollector<T, R> implements Collector<T, long[], R> {
+
+        private final ToLongFunction<? super T> mapper;
+        private final LongFunction<R> result;
+
+        private LongCollector(final ToLongFunction<? super T> mapper, final LongFunction<R> result) {
+            this.mapper = mapper;
+            this.result = result;
+        }
+
+        @Override
+        public Supplier<long[]> supplier() {
+            return () -> new long[1];
+        }
+
+        @Override
+        public BiConsumer<long[], T> accumulator() {
+            return (sum, element) -> sum[0] += mapper.applyAsLong(element);
+        }
+
+        @Override
+        public BinaryOperator<long[]> combiner() {
+            return (left, right) -> {
+                left[0] += right[0];
+                return left;
+            };
+        }
+
+        @Override
+        public Function<long[], R> finisher() {
+            return sum -> result.apply(sum[0]);
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * A table with int keys and a long or an object value per key. Keys between 0 and
+     * {@link #DENSE_LIMIT} are used as array index directly. The first key outside this
+     * range turns the table into an open addressing hash table with linear probing.
+     */
+    static final class IntKeyTable {
+
+        static final int DENSE_LIMIT = 256;
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private boolean dense = true;
+        private int[] keys;
+        private boolean[] used;
+        private int size;
+
+        long[] longs;
+        Object[] objects;
+
+        IntKeyTable(final boolean objectValues) {
+            keys = new int[INITIAL_CAPACITY];
+            used = new boolean[INITIAL_CAPACITY];
+            if (objectValues) {
+                objects = new Object[INITIAL_CAPACITY];
+            } else {
+                longs = new long[INITIAL_CAPACITY];
+            }
+        }
+
+        /**
+         * Returns the slot of the key and adds the key if it is not in the table yet.
+         * The value arrays may be replaced by this call, so always access them after it.
+         */
+        int slot(final int key) {
+            if (dense) {
+                if (key >= 0 && key < DENSE_LIMIT) {
+                    if (key >= used.length) {
+                        resizeDense(Math.min(DENSE_LIMIT, Math.max(key + 1, used.length * 2)));
+                    }
+                    if (!used[key]) {
+                        used[key] = true;
+                        keys[key] = key;
+                        size++;
+                    }
+                    return key;
+                }
+                rehash(hashCapacity(size + 1));
+            }
+
+            final int mask = used.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if ((size + 1) * 2 > used.length) {
+                rehash(used.length * 2);
+                return slot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+            return slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return used.length;
+        }
+
+        boolean isUsed(final int slot) {
+            return used[slot];
+        }
+
+        int keyAt(final int slot) {
+            return keys[slot];
+        }
+
+        boolean isDense() {
+            return dense;
+        }
+
+        private void resizeDense(final int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+            used = Arrays.copyOf(used, capacity);
+            if (objects != null) {
+                objects = Arrays.copyOf(objects, capacity);
+            } else {
+                longs = Arrays.copyOf(longs, capacity);
+            }
+        }
+
+        private void rehash(final int capacity) {
+            final int[] oldKeys = keys;
+            final boolean[] oldUsed = used;
+            final long[] oldLongs = longs;
+            final Object[] oldObjects = objects;
+
+            dense = false;
+            keys = new int[capacity];
+            used = new boolean[capacity];
+            longs = oldLongs == null ? null : new long[capacity];
+            objects = oldObjects == null ? null : new Object[capacity];
+
+            final int mask = capacity - 1;
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (used[slot]) {
+                        slot = (slot + 1) & mask;
+                    }
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    if (longs != null) {
+                        longs[slot] = oldLongs[i];
+                    } else {
+                        objects[slot] = oldObjects[i];
+                    }
+                }
+            }
+        }
+
+        private static int hashCapacity(final int size) {
+            return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(size * 2 - 1) << 1);
+        }
+
+        private static int hash(final int key) {
+            final int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
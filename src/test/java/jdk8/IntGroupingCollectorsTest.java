@@ -0,0 +1,98 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jdk1.Person;
+
+import static com.google.common.truth.Truth.assertThat;
+import static jdk8.IntGroupingCollectors.counting;
+import static jdk8.IntGroupingCollectors.groupingByInt;
+import static jdk8.IntGroupingCollectors.summingInt;
+
+/**
+ * This class is used to test the int key groupingBy collectors against the
+ * results of {@link Collectors#groupingBy}.
+ */
+public class IntGroupingCollectorsTest {
+
+    @Test
+    public void testGroupByAge() {
+        final List<Person> persons = Person.createPersons(); // Max 18, Peter 23, Pamela 23, David 12
+
+        final Map<Integer, List<Person>> groupByAge = persons.stream()
+                .collect(groupingByInt(Person::getAge));
+
+        assertThat(groupByAge).hasSize(3);
+        assertThat(groupByAge.get(23)).containsExactly(persons.get(1), persons.get(2)).inOrder();
+    }
+
+    @Test
+    public void testCountingAndSumming() {
+        final List<Person> persons = Person.createPersons(10_000);
+
+        assertThat(persons.stream().collect(groupingByInt(Person::getAge, counting())))
+                .isEqualTo(persons.stream().collect(Collectors.groupingBy(Person::getAge, Collectors.counting())));
+
+        assertThat(persons.stream().collect(groupingByInt(Person::getAge, summingInt(Person::getAge))))
+                .isEqualTo(persons.stream().collect(Collectors.groupingBy(Person::getAge, Collectors.summingInt(Person::getAge))));
+    }
+
+    @Test
+    public void testParallelStreamKeepsEncounterOrder() {
+        final List<Person> persons = Person.createPersons(100_000);
+
+        final Map<Integer, List<Person>> expected = persons.stream()
+                .collect(Collectors.groupingBy(Person::getAge));
+
+        assertThat(persons.parallelStream().collect(groupingByInt(Person::getAge))).isEqualTo(expected);
+        assertThat(persons.parallelStream().collect(groupingByInt(Person::getAge, counting())))
+                .isEqualTo(persons.stream().collect(Collectors.groupingBy(Person::getAge, Collectors.counting())));
+    }
+
+    @Test
+    public void testKeysOutsideTheDenseRange() {
+        // negative and big keys switch the table from an array to a hash table
+        final Map<Integer, Long> expected = IntStream.range(-5_000, 5_000).boxed()
+                .collect(Collectors.groupingBy(i -> i * 7919 % 1000, Collectors.counting()));
+
+        final Map<Integer, Long> counts = IntStream.range(-5_000, 5_000).boxed()
+                .parallel()
+                .collect(groupingByInt(i -> i * 7919 % 1000, counting()));
+
+        assertThat(counts).isEqualTo(expected);
+    }
+
+    @Test
+    public void testDownstreamsWorkOnTheirOwn() {
+        final List<Person> persons = Person.createPersons();
+
+        assertThat(persons.stream().collect(counting())).isEqualTo(4L);
+        assertThat(persons.parallelStream().collect(summingInt(Person::getAge))).isEqualTo(76);
+    }
+
+    @Test
+    public void testDenseTableSwitchesToHashTable() {
+        final IntGroupingCollectors.IntKeyTable table = new IntGroupingCollectors.IntKeyTable(false);
+        add(table, 150, 2);
+        assertThat(table.isDense()).isTrue();
+
+        add(table, 1_000_000, 3);
+        add(table, 150, 1);
+
+        assertThat(table.isDense()).isFalse();
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.longs[table.slot(150)]).isEqualTo(3L);
+        assertThat(table.longs[table.slot(1_000_000)]).isEqualTo(3L);
+    }
+
+    private static void add(final IntGroupingCollectors.IntKeyTable table, final int key, final long value) {
+        // the slot must be looked up first as it may replace the value array
+        final int slot = table.slot(key);
+        table.longs[slot] += value;
+    }
+}
@@ -0,0 +1,287 @@
+package jdk8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This class joins the elements of a stream like {@link java.util.stream.Collectors#joining(CharSequence)}
+ * but writes them directly into an {@link Appendable}, a channel or a memory-mapped file.
+ * <p>
+ * {@code Collectors.joining} (see {@link StreamsTest#createAPhrase()}) keeps the whole text
+ * in a StringBuilder and then copies it into one String, so a big export needs several
+ * times its size on the heap. Here only a buffer of {@link #BUFFER_SIZE} bytes is used to
+ * encode the characters before they get written.
+ * <p>
+ * {@link #writeParallel(Stream, WritableByteChannel)} reads {@link #CHUNK_SIZE} elements,
+ * encodes parts of them on all cores and writes the parts in their original order.
+ */
+public final class JoiningSink {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    static final int CHUNK_SIZE = 4096;
+    static final long MAPPED_REGION_SIZE = 16 * 1024 * 1024;
+
+    private final String delimiter;
+    private final String prefix;
+    private final String suffix;
+    private final Charset charset;
+
+    private JoiningSink(final String delimiter, final String prefix, final String suffix, final Charset charset) {
+        this.delimiter = delimiter;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.charset = charset;
+    }
+
+    public static JoiningSink joining(final CharSequence delimiter) {
+        return joining(delimiter, "", "");
+    }
+
+    public static JoiningSink joining(final CharSequence delimiter, final CharSequence prefix, final CharSequence suffix) {
+        return new JoiningSink(delimiter.toString(), prefix.toString(), suffix.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param charset the charset for channels and files, UTF-8 by default
+     * @return a sink with the same delimiter, prefix and suffix
+     */
+    public JoiningSink withCharset(final Charset charset) {
+        return new JoiningSink(delimiter, prefix, suffix, charset);
+    }
+
+    /**
+     * @param elements the elements to join
+     * @param out      the target, e.g. a {@link java.io.BufferedWriter}
+     * @return the number of elements
+     */
+    public long writeTo(final Stream<? extends CharSequence> elements, final Appendable out) {
+        try {
+            out.append(prefix);
+            long count = 0;
+            for (Iterator<? extends CharSequence> iterator = elements.iterator(); iterator.hasNext(); count++) {
+                if (count > 0) {
+                    out.append(delimiter);
+                }
+                out.append(iterator.next());
+            }
+            out.append(suffix);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long writeTo(final Stream<? extends CharSequence> elements, final WritableByteChannel channel) {
+        final Encoder encoder = new Encoder(ByteBuffer.allocate(BUFFER_SIZE), full -> {
+            write(full, channel);
+            return full;
+        });
+        final long count = encode(elements, encoder);
+        write(encoder.finish(), channel);
+        return count;
+    }
+
+    /**
+     * Writes into the file through memory-mapped regions, the file gets truncated to the written size.
+     */
+    public long writeTo(final Stream<? extends CharSequence> elements, final Path file) {
+        return writeTo(elements, file, MAPPED_REGION_SIZE);
+    }
+
+    long writeTo(final Stream<? extends CharSequence> elements, final Path file, final long regionSize) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long[] regionStart = new long[1];
+            final Encoder encoder = new Encoder(channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize), full -> {
+                regionStart[0] += full.position();
+                return channel.map(FileChannel.MapMode.READ_WRITE, regionStart[0], regionSize);
+            });
+            final long count = encode(elements, encoder);
+            final int lastRegionSize = encoder.finish().position();
+            channel.truncate(regionStart[0] + lastRegionSize);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #writeTo(Stream, WritableByteChannel)}, but the elements of every chunk
+     * get encoded on all cores.
+     */
+    public long writeParallel(final Stream<? extends CharSequence> elements, final WritableByteChannel channel) {
+        return writeParallel(elements, channel, Runtime.getRuntime().availableProcessors());
+    }
+
+    long writeParallel(final Stream<? extends CharSequence> elements, final WritableByteChannel channel, final int parts) {
+        final CharSequence[] chunk = new CharSequence[CHUNK_SIZE];
+        final Encoder[] encoders = new Encoder[parts];
+        for (int i = 0; i < parts; i++) {
+            encoders[i] = new Encoder(ByteBuffer.allocate(BUFFER_SIZE), JoiningSink::grow);
+        }
+        final Iterator<? extends CharSequence> iterator = elements.iterator();
+        long count = 0;
+
+        encoders[0].append(prefix);
+        write(encoders[0].finish(), channel);
+        while (iterator.hasNext()) {
+            int size = 0;
+            while (size < CHUNK_SIZE && iterator.hasNext()) {
+                chunk[size++] = iterator.next();
+            }
+            final int chunkSize = size;
+            final boolean first = count == 0;
+            final int partSize = (chunkSize + parts - 1) / parts;
+            IntStream.range(0, parts)
+                    .parallel()
+                    .forEach(part -> {
+                        final Encoder encoder = encoders[part];
+                        for (int i = part * partSize; i < Math.min(chunkSize, (part + 1) * partSize); i++) {
+                            if (i > 0 || !first) {
+                                encoder.append(delimiter);
+                            }
+                            encoder.append(chunk[i]);
+                        }
+                    });
+            for (Encoder encoder : encoders) {
+                write(encoder.finish(), channel);
+            }
+            count += chunkSize;
+        }
+        encoders[0].append(suffix);
+        write(encoders[0].finish(), channel);
+        return count;
+    }
+
+    private long encode(final Stream<? extends CharSequence> elements, final Encoder encoder) {
+        encoder.append(prefix);
+        long count = 0;
+        for (Iterator<? extends CharSequence> iterator = elements.iterator(); iterator.hasNext(); count++) {
+            if (count > 0) {
+                encoder.append(delimiter);
+            }
+            encoder.append(iterator.next());
+        }
+        encoder.append(suffix);
+        return count;
+    }
+
+    /**
+     * Writes the bytes of the buffer and clears it.
+     */
+    private static void write(final ByteBuffer buffer, final WritableByteChannel channel) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer grow(final ByteBuffer full) {
+        final ByteBuffer bigger = ByteBuffer.allocate(full.capacity() * 2);
+        full.flip();
+        bigger.put(full);
+        return bigger;
+    }
+
+    /**
+     * Is called when the buffer of an {@link Encoder} is full.
+     */
+    @FunctionalInterface
+    private interface Drain {
+
+        /**
+         * @param full the buffer up to its position
+         * @return the buffer to continue with
+         */
+        ByteBuffer drain(ByteBuffer full) throws IOException;
+    }
+
+    /**
+     * Copies the characters into a reusable buffer and encodes them block by block.
+     */
+    private final class Encoder {
+
+        private final CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        private final Drain drain;
+        private ByteBuffer buffer;
+
+        private Encoder(final ByteBuffer buffer, final Drain drain) {
+            this.buffer = buffer;
+            this.drain = drain;
+        }
+
+        private void append(final CharSequence text) {
+            final int length = text.length();
+            int start = 0;
+            while (start < length) {
+                if (!chars.hasRemaining()) {
+                    encode(false);
+                }
+                final char[] array = chars.array();
+                final int position = chars.position();
+                final int end = start + Math.min(chars.remaining(), length - start);
+                if (text instanceof String) {
+                    ((String) text).getChars(start, end, array, position);
+                } else {
+                    for (int i = start; i < end; i++) {
+                        array[position + i - start] = text.charAt(i);
+                    }
+                }
+                chars.position(position + end - start);
+                start = end;
+            }
+        }
+
+        /**
+         * Encodes all characters, the buffer then contains all bytes appended so far.
+         */
+        private ByteBuffer finish() {
+            encode(true);
+            return buffer;
+        }
+
+        private void encode(final boolean endOfInput) {
+            chars.flip();
+            try {
+                CoderResult result = encoder.encode(chars, buffer, endOfInput);
+                while (result.isOverflow()) {
+                    buffer = drain.drain(buffer);
+                    result = encoder.encode(chars, buffer, endOfInput);
+                }
+                if (endOfInput) {
+                    while (encoder.flush(buffer).isOverflow()) {
+                        buffer = drain.drain(buffer);
+                    }
+                    encoder.reset();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // an incomplete surrogate pair stays for the next block
+            chars.compact();
+        }
+    }
+}
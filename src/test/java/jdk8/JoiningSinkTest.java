@@ -0,0 +1,108 @@
+package jdk8;
+
+import jdk1.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link JoiningSink}.
+ */
+public class JoiningSinkTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> names = IntStream.range(0, 20_000)
+            .mapToObj(i -> i % 7 == 0 ? "Jürgen 😀 " + i : "Person" + i)
+            .collect(Collectors.toList());
+
+    private final String expected = names.stream().collect(Collectors.joining(", ", "[", "]"));
+
+    private final JoiningSink sink = JoiningSink.joining(", ", "[", "]");
+
+    /**
+     * Same as {@link StreamsTest#createAPhrase()}.
+     */
+    @Test
+    public void testWriteToAppendable() {
+        final StringBuilder phrase = new StringBuilder();
+
+        final long count = JoiningSink.joining(" and ", "In Germany ", " are of legal age.").writeTo(
+                Person.createPersons().stream()
+                        .filter(p -> p.getAge() >= 18)
+                        .map(Person::getName),
+                phrase);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(phrase.toString()).isEqualTo("In Germany Max and Peter and Pamela are of legal age.");
+    }
+
+    @Test
+    public void testWriteToChannel() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long count = sink.writeTo(names.stream(), Channels.newChannel(out));
+
+        assertThat(count).isEqualTo(names.size());
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testWriteEmptyStream() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        sink.writeTo(Stream.empty(), Channels.newChannel(out));
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    public void testWriteToMappedFile() throws IOException {
+        final Path file = folder.newFile("names.txt").toPath();
+
+        // small regions, so the file gets mapped many times
+        final long count = sink.writeTo(names.stream(), file, 4096);
+
+        assertThat(count).isEqualTo(names.size());
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testWriteParallel() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long count = sink.writeParallel(names.stream(), Channels.newChannel(out));
+
+        assertThat(count).isEqualTo(names.size());
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+
+        out.reset();
+        sink.writeParallel(names.stream(), Channels.newChannel(out), 3);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testOtherCharset() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        JoiningSink.joining(";").withCharset(StandardCharsets.ISO_8859_1)
+                .writeTo(Arrays.asList("Jürgen", "Max").stream(), Channels.newChannel(out));
+
+        assertThat(out.toByteArray()).isEqualTo("Jürgen;Max".getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
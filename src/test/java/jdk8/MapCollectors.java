@@ -0,0 +1,180 @@
+package jdk8;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class contains toMap collectors that know the size of the result in advance.
+ * <p>
+ * {@link Collectors#toMap(Function, Function)} (see {@link StreamsTest#useCollectorToTransformToListMapSet()})
+ * starts with a default sized HashMap that gets rehashed again and again, and a parallel
+ * stream creates a map per task which are then merged pair by pair.
+ * {@link #collectToMap(Stream, Function, Function, BinaryOperator, DuplicateKeys)} reads the
+ * estimated size of the stream and creates the map with the right capacity. An unordered
+ * parallel stream puts all entries into one presized {@link ConcurrentHashMap}, so there
+ * is nothing to merge at the end.
+ * <p>
+ * Duplicate keys are merged with the given function and counted in {@link DuplicateKeys}.
+ * Like in a ConcurrentHashMap neither keys nor values may be null.
+ */
+public final class MapCollectors {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private MapCollectors() {
+    }
+
+    /**
+     * Same as {@link Collectors#toMap(Function, Function, BinaryOperator)} but with a presized map.
+     *
+     * @param keyMapper    creates the key of an element
+     * @param valueMapper  creates the value of an element, must not return null
+     * @param merge        merges the values of duplicate keys, the earlier one first
+     * @param expectedSize the expected number of keys
+     * @param duplicates   counts the duplicate keys
+     * @return the collector
+     */
+    public static <T, K, V> Collector<T, ?, Map<K, V>> toMap(final Function<? super T, ? extends K> keyMapper,
+                                                            final Function<? super T, ? extends V> valueMapper,
+                                                            final BinaryOperator<V> merge,
+                                                            final int expectedSize,
+                                                            final DuplicateKeys<? super K> duplicates) {
+        final BiConsumer<Map<K, V>, T> accumulator = (map, element) ->
+                put(map, keyMapper.apply(element), valueMapper.apply(element), merge, duplicates);
+
+        final BinaryOperator<Map<K, V>> combiner = (left, right) -> {
+            // put the smaller map into the bigger one, but keep the order for the merge function
+            if (left.size() >= right.size()) {
+                right.forEach((key, value) -> put(left, key, value, merge, duplicates));
+                return left;
+            }
+            left.forEach((key, value) -> {
+                final V existing = right.putIfAbsent(key, value);
+                if (existing != null) {
+                    duplicates.record(key);
+                    right.put(key, merge.apply(value, existing));
+                }
+            });
+            return right;
+        };
+
+        return Collector.of(() -> new HashMap<>(capacity(expectedSize)), accumulator, combiner,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public static <T, K, V> Map<K, V> collectToMap(final Stream<T> stream,
+                                                  final Function<? super T, ? extends K> keyMapper,
+                                                  final Function<? super T, ? extends V> valueMapper,
+                                                  final BinaryOperator<V> merge) {
+        return collectToMap(stream, keyMapper, valueMapper, merge, new DuplicateKeys<>());
+    }
+
+    /**
+     * Collects the stream into a map that is presized for the estimated size of the stream.
+     *
+     * @param stream      the elements
+     * @param keyMapper   creates the key of an element
+     * @param valueMapper creates the value of an element, must not return null
+     * @param merge       merges the values of duplicate keys, the earlier one first if the stream is ordered
+     * @param duplicates  counts the duplicate keys
+     * @return a {@link ConcurrentHashMap} for unordered parallel streams, a {@link HashMap} otherwise
+     */
+    public static <T, K, V> Map<K, V> collectToMap(final Stream<T> stream,
+                                                  final Function<? super T, ? extends K> keyMapper,
+                                                  final Function<? super T, ? extends V> valueMapper,
+                                                  final BinaryOperator<V> merge,
+                                                  final DuplicateKeys<? super K> duplicates) {
+        final boolean parallel = stream.isParallel();
+        final Spliterator<T> spliterator = stream.spliterator();
+        final long estimatedSize = spliterator.estimateSize();
+        final int expectedSize = estimatedSize >= MAXIMUM_CAPACITY ? 16 : (int) estimatedSize;
+        final Stream<T> elements = StreamSupport.stream(spliterator, parallel).onClose(stream::close);
+
+        if (!parallel) {
+            return elements.collect(toMap(keyMapper, valueMapper, merge, expectedSize, duplicates));
+        }
+        if (!spliterator.hasCharacteristics(Spliterator.ORDERED)) {
+            final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<>(capacity(expectedSize));
+            elements.forEach(element -> {
+                final K key = keyMapper.apply(element);
+                final V value = Objects.requireNonNull(valueMapper.apply(element));
+                if (map.putIfAbsent(key, value) != null) {
+                    duplicates.record(key);
+                    map.merge(key, value, merge);
+                }
+            });
+            return map;
+        }
+        // every task of the parallel stream gets its own map, they only need a part of the size
+        final int tasks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return elements.collect(toMap(keyMapper, valueMapper, merge, expectedSize / tasks, duplicates));
+    }
+
+    private static <K, V> void put(final Map<K, V> map, final K key, final V value, final BinaryOperator<V> merge,
+                                   final DuplicateKeys<? super K> duplicates) {
+        final V existing = map.putIfAbsent(key, Objects.requireNonNull(value));
+        if (existing != null) {
+            duplicates.record(key);
+            map.put(key, merge.apply(existing, value));
+        }
+    }
+
+    /**
+     * @return the capacity of a HashMap that holds the expected size without a rehash
+     */
+    static int capacity(final int expectedSize) {
+        if (expectedSize < 3) {
+            return expectedSize + 1;
+        }
+        return (int) Math.min(MAXIMUM_CAPACITY, (long) (expectedSize / LOAD_FACTOR) + 1);
+    }
+
+    /**
+     * Counts the duplicate keys of a collect and keeps a few of them as examples.
+     *
+     * @param <K> the type of the keys
+     */
+    public static final class DuplicateKeys<K> {
+
+        static final int MAX_EXAMPLES = 16;
+
+        private final LongAdder count = new LongAdder();
+        private final Set<K> examples = ConcurrentHashMap.newKeySet();
+
+        void record(final K key) {
+            count.increment();
+            if (examples.size() < MAX_EXAMPLES) {
+                examples.add(key);
+            }
+        }
+
+        /**
+         * @return the number of elements whose key was already in the map
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return up to {@link #MAX_EXAMPLES} of the duplicate keys
+         */
+        public Set<K> getExamples() {
+            return Collections.unmodifiableSet(examples);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package jdk8;
+
+import jdk1.Person;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link MapCollectors}.
+ */
+public class MapCollectorsTest {
+
+    /**
+     * Same as {@link StreamsTest#useCollectorToTransformToListMapSet()}.
+     */
+    @Test
+    public void testMapByName() {
+        final MapCollectors.DuplicateKeys<String> duplicates = new MapCollectors.DuplicateKeys<>();
+
+        final Map<String, Person> mapByName = Person.createPersons().stream()
+                .collect(MapCollectors.toMap(Person::getName, Function.identity(), (p1, p2) -> p1, 4, duplicates));
+
+        assertThat(mapByName).hasSize(4);
+        assertThat(mapByName.get("Max").getAge()).isEqualTo(18);
+        assertThat(duplicates.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMergeDuplicatesInOrder() {
+        final List<Person> persons = Person.createPersons(10_000);
+        final Map<Integer, String> expected = persons.stream()
+                .collect(Collectors.toMap(Person::getAge, Person::getName, (n1, n2) -> n1 + "," + n2));
+
+        final MapCollectors.DuplicateKeys<Integer> duplicates = new MapCollectors.DuplicateKeys<>();
+        final Map<Integer, String> sequential = MapCollectors.collectToMap(persons.stream(),
+                Person::getAge, Person::getName, (n1, n2) -> n1 + "," + n2, duplicates);
+
+        assertThat(sequential).isEqualTo(expected);
+        assertThat(sequential).isInstanceOf(HashMap.class);
+        assertThat(duplicates.getCount()).isEqualTo(10_000 - 100);
+        assertThat(duplicates.getExamples()).hasSize(MapCollectors.DuplicateKeys.MAX_EXAMPLES);
+
+        final Map<Integer, String> parallel = MapCollectors.collectToMap(persons.parallelStream(),
+                Person::getAge, Person::getName, (n1, n2) -> n1 + "," + n2);
+
+        assertThat(parallel).isEqualTo(expected);
+        assertThat(parallel).isInstanceOf(HashMap.class);
+    }
+
+    @Test
+    public void testUnorderedParallelUsesConcurrentMap() {
+        final List<Person> persons = Person.createPersons(100_000);
+        final MapCollectors.DuplicateKeys<Integer> duplicates = new MapCollectors.DuplicateKeys<>();
+
+        final Map<Integer, Long> countByAge = MapCollectors.collectToMap(persons.parallelStream().unordered(),
+                Person::getAge, p -> 1L, Long::sum, duplicates);
+
+        assertThat(countByAge).isInstanceOf(ConcurrentHashMap.class);
+        assertThat(countByAge).isEqualTo(persons.stream()
+                .collect(Collectors.groupingBy(Person::getAge, Collectors.counting())));
+        assertThat(duplicates.getCount()).isEqualTo(100_000 - 100);
+    }
+
+    @Test
+    public void testCapacity() {
+        assertThat(MapCollectors.capacity(0)).isEqualTo(1);
+        assertThat(MapCollectors.capacity(12)).isEqualTo(17);
+        assertThat(MapCollectors.capacity(Integer.MAX_VALUE)).isEqualTo(1 << 30);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() {
+        Person.createPersons().stream()
+                .collect(MapCollectors.toMap(Person::getName, p -> null, (p1, p2) -> p1, 4, new MapCollectors.DuplicateKeys<>()));
+    }
+}
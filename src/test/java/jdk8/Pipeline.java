@@ -0,0 +1,296 @@
+package jdk8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class records the operations of a stream pipeline and improves their order before
+ * the stream gets created.
+ * <p>
+ * {@link StreamsTest#executionOrderOfIntermediateOperations()} shows that a filter in
+ * front of a map saves map calls and that a sort after a filter has less to sort. Here
+ * this happens automatically when the terminal operation is called:
+ * <ul>
+ * <li>filters move in front of sorts, and in front of transforms if they are declared
+ * with {@link #hoistableFilter(Predicate)}</li>
+ * <li>sorts are removed if the terminal operation doesn't care about the order,
+ * e.g. {@link #count()} or a collector to a set, or if the same sort follows directly</li>
+ * <li>maps and filters next to each other are fused into one function, so every element
+ * only passes one stream stage for them</li>
+ * </ul>
+ * The functions must not have side effects, otherwise the changed order can be noticed.
+ *
+ * @param <T> the type of the elements
+ */
+public final class Pipeline<T> {
+
+    /**
+     * Returned by a fused function for elements that didn't pass a filter.
+     */
+    private static final Object SKIP = new Object();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object> NATURAL_ORDER = (Comparator) Comparator.naturalOrder();
+
+    private final Collection<?> source;
+    private final boolean parallel;
+    private final List<Stage> stages;
+
+    private Pipeline(final Collection<?> source, final boolean parallel, final List<Stage> stages) {
+        this.source = source;
+        this.parallel = parallel;
+        this.stages = stages;
+    }
+
+    public static <T> Pipeline<T> of(final Collection<? extends T> source) {
+        return new Pipeline<>(source, false, Collections.emptyList());
+    }
+
+    public Pipeline<T> parallel() {
+        return new Pipeline<>(source, true, stages);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <R> Pipeline<R> map(final Function<? super T, ? extends R> mapper) {
+        return then(new Stage(Kind.MAP, "map", element -> mapper.apply((T) element), false, null));
+    }
+
+    /**
+     * A map that keeps the type of the elements, e.g. {@code person -> new Person(person.getName().toUpperCase(), person.getAge())}.
+     * Only transforms can be skipped by a hoistable filter.
+     */
+    @SuppressWarnings("unchecked")
+    public Pipeline<T> transform(final UnaryOperator<T> operator) {
+        return then(new Stage(Kind.TRANSFORM, "transform", element -> operator.apply((T) element), false, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Pipeline<T> filter(final Predicate<? super T> predicate) {
+        return then(new Stage(Kind.FILTER, "filter", element -> predicate.test((T) element) ? element : SKIP, false, null));
+    }
+
+    /**
+     * A filter that gives the same result before and after the transforms in front of it,
+     * e.g. a filter on the age after a transform that only changes the name. It gets moved
+     * in front of these transforms, so they only run for the elements that pass.
+     */
+    @SuppressWarnings("unchecked")
+    public Pipeline<T> hoistableFilter(final Predicate<? super T> predicate) {
+        return then(new Stage(Kind.FILTER, "filter", element -> predicate.test((T) element) ? element : SKIP, true, null));
+    }
+
+    public Pipeline<T> sorted() {
+        return then(new Stage(Kind.SORTED, "sorted", null, false, NATURAL_ORDER));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Pipeline<T> sorted(final Comparator<? super T> comparator) {
+        return then(new Stage(Kind.SORTED, "sorted", null, false, (Comparator<Object>) comparator));
+    }
+
+    private <R> Pipeline<R> then(final Stage stage) {
+        final List<Stage> next = new ArrayList<>(stages);
+        next.add(stage);
+        return new Pipeline<>(source, parallel, next);
+    }
+
+    public List<T> toList() {
+        return collect(Collectors.toList());
+    }
+
+    public Set<T> toSet() {
+        return collect(Collectors.toSet());
+    }
+
+    /**
+     * @param collector the collector, sorts are removed if it has the characteristic UNORDERED
+     */
+    public <R, A> R collect(final Collector<? super T, A, R> collector) {
+        final boolean unordered = collector.characteristics().contains(Collector.Characteristics.UNORDERED);
+        return stream(unordered).collect(collector);
+    }
+
+    public long count() {
+        return stream(true).count();
+    }
+
+    public boolean anyMatch(final Predicate<? super T> predicate) {
+        return stream(true).anyMatch(predicate);
+    }
+
+    public Optional<T> findFirst() {
+        return stream(false).findFirst();
+    }
+
+    /**
+     * Calls the action in an unspecified order, use {@link #forEachOrdered(Consumer)} for sorted pipelines.
+     */
+    public void forEach(final Consumer<? super T> action) {
+        stream(true).forEach(action);
+    }
+
+    public void forEachOrdered(final Consumer<? super T> action) {
+        stream(false).forEachOrdered(action);
+    }
+
+    /**
+     * @param unordered true if the terminal operation doesn't depend on the order
+     * @return the names of the stages that will be executed, e.g. [filter, sorted, transform+map]
+     */
+    List<String> explain(final boolean unordered) {
+        final List<String> names = new ArrayList<>();
+        for (Stage stage : optimize(unordered)) {
+            names.add(stage.name);
+        }
+        return names;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<T> stream(final boolean unordered) {
+        Stream<Object> stream = (Stream<Object>) (parallel ? source.parallelStream() : source.stream());
+        for (Stage stage : optimize(unordered)) {
+            if (stage.kind == Kind.SORTED) {
+                stream = stream.sorted(stage.comparator);
+            } else if (!stage.filters) {
+                stream = stream.map(stage.function);
+            } else if (stage.kind == Kind.FILTER) {
+                final Function<Object, Object> filter = stage.function;
+                stream = stream.filter(element -> filter.apply(element) != SKIP);
+            } else {
+                stream = stream.map(stage.function).filter(element -> element != SKIP);
+            }
+        }
+        return (Stream<T>) stream;
+    }
+
+    private List<Stage> optimize(final boolean unordered) {
+        final List<Stage> optimized = new ArrayList<>(stages);
+        if (unordered) {
+            optimized.removeIf(stage -> stage.kind == Kind.SORTED);
+        }
+        hoistFilters(optimized);
+        removeRepeatedSorts(optimized);
+        return fuse(optimized);
+    }
+
+    /**
+     * Moves every filter in front of the sorts before it, and a hoistable filter also in front of transforms.
+     */
+    private static void hoistFilters(final List<Stage> stages) {
+        for (int i = 1; i < stages.size(); i++) {
+            if (stages.get(i).kind != Kind.FILTER) {
+                continue;
+            }
+            int position = i;
+            while (position > 0 && canSwap(stages.get(position - 1), stages.get(position))) {
+                Collections.swap(stages, position - 1, position);
+                position--;
+            }
+        }
+    }
+
+    private static boolean canSwap(final Stage before, final Stage filter) {
+        return before.kind == Kind.SORTED || before.kind == Kind.TRANSFORM && filter.hoistable;
+    }
+
+    private static void removeRepeatedSorts(final List<Stage> stages) {
+        for (int i = stages.size() - 1; i > 0; i--) {
+            final Stage stage = stages.get(i);
+            final Stage before = stages.get(i - 1);
+            if (stage.kind == Kind.SORTED && before.kind == Kind.SORTED && stage.comparator.equals(before.comparator)) {
+                stages.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Combines neighbouring maps, transforms and filters into one stage.
+     */
+    private static List<Stage> fuse(final List<Stage> stages) {
+        final List<Stage> fused = new ArrayList<>();
+        int start = 0;
+        while (start < stages.size()) {
+            if (stages.get(start).kind == Kind.SORTED) {
+                fused.add(stages.get(start++));
+                continue;
+            }
+            int end = start;
+            while (end < stages.size() && stages.get(end).kind != Kind.SORTED) {
+                end++;
+            }
+            fused.add(end - start == 1 ? stages.get(start) : Stage.fuse(stages.subList(start, end)));
+            start = end;
+        }
+        return fused;
+    }
+
+    private enum Kind {
+        MAP, TRANSFORM, FILTER, SORTED, FUSED
+    }
+
+    private static final class Stage {
+
+        private final Kind kind;
+        private final String name;
+        private final Function<Object, Object> function;
+        private final boolean hoistable;
+        private final Comparator<Object> comparator;
+
+        /**
+         * True if the function can return {@link #SKIP}.
+         */
+        private final boolean filters;
+
+        private Stage(final Kind kind, final String name, final Function<Object, Object> function,
+                      final boolean hoistable, final Comparator<Object> comparator) {
+            this(kind, name, function, hoistable, comparator, kind == Kind.FILTER);
+        }
+
+        private Stage(final Kind kind, final String name, final Function<Object, Object> function,
+                      final boolean hoistable, final Comparator<Object> comparator, final boolean filters) {
+            this.kind = kind;
+            this.name = name;
+            this.function = function;
+            this.hoistable = hoistable;
+            this.comparator = comparator;
+            this.filters = filters;
+        }
+
+        private static Stage fuse(final List<Stage> stages) {
+            @SuppressWarnings("unchecked")
+            final Function<Object, Object>[] functions = (Function<Object, Object>[]) new Function<?, ?>[stages.size()];
+            final StringBuilder name = new StringBuilder();
+            boolean filters = false;
+            boolean onlyFilters = true;
+            for (int i = 0; i < functions.length; i++) {
+                final Stage stage = stages.get(i);
+                functions[i] = stage.function;
+                filters |= stage.filters;
+                onlyFilters &= stage.kind == Kind.FILTER;
+                name.append(i == 0 ? "" : "+").append(stage.name);
+            }
+            return new Stage(onlyFilters ? Kind.FILTER : Kind.FUSED, name.toString(), element -> {
+                Object current = element;
+                for (Function<Object, Object> function : functions) {
+                    current = function.apply(current);
+                    if (current == SKIP) {
+                        return SKIP;
+                    }
+                }
+                return current;
+            }, false, null, filters);
+        }
+    }
+}
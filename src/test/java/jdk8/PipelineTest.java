@@ -0,0 +1,107 @@
+package jdk8;
+
+import jdk1.Person;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link Pipeline}.
+ */
+public class PipelineTest {
+
+    private final List<String> letters = Arrays.asList("d1", "a1", "a2", "c1");
+
+    /**
+     * Same as {@link StreamsTest#executionOrderOfIntermediateOperations()}.
+     */
+    @Test
+    public void testHoistFilterBeforeTransform() {
+        final int[] transformExecutionAmounts = new int[]{0};
+
+        final Pipeline<String> pipeline = Pipeline.of(letters)
+                .transform(s -> {
+                    transformExecutionAmounts[0]++;
+                    return s.toUpperCase();
+                })
+                .hoistableFilter(s -> s.endsWith("1"));
+
+        assertThat(pipeline.toList()).containsExactly("D1", "A1", "C1").inOrder();
+        assertThat(transformExecutionAmounts[0]).isEqualTo(3);
+        assertThat(pipeline.explain(false)).containsExactly("filter+transform");
+    }
+
+    @Test
+    public void testKeepFilterAfterMap() {
+        final int[] mapExecutionAmounts = new int[]{0};
+
+        final Pipeline<String> pipeline = Pipeline.of(letters)
+                .map(s -> {
+                    mapExecutionAmounts[0]++;
+                    return s.toUpperCase();
+                })
+                .filter(s -> s.startsWith("A"));
+
+        assertThat(pipeline.toList()).containsExactly("A1", "A2").inOrder();
+        assertThat(mapExecutionAmounts[0]).isEqualTo(4);
+        assertThat(pipeline.explain(false)).containsExactly("map+filter");
+    }
+
+    @Test
+    public void testFilterBeforeSort() {
+        final int[] sortExecutionAmounts = new int[]{0};
+
+        final Pipeline<String> pipeline = Pipeline.of(letters)
+                .sorted((s1, s2) -> {
+                    sortExecutionAmounts[0]++;
+                    return s1.compareTo(s2);
+                })
+                .filter(s -> s.startsWith("d"));
+
+        assertThat(pipeline.toList()).containsExactly("d1");
+        assertThat(sortExecutionAmounts[0]).isEqualTo(0);
+        assertThat(pipeline.explain(false)).containsExactly("filter", "sorted").inOrder();
+    }
+
+    @Test
+    public void testRemoveSortForUnorderedTerminals() {
+        final Pipeline<String> pipeline = Pipeline.of(letters)
+                .sorted()
+                .map(String::toUpperCase)
+                .sorted()
+                .sorted();
+
+        assertThat(pipeline.explain(false)).containsExactly("sorted", "map", "sorted").inOrder();
+        assertThat(pipeline.explain(true)).containsExactly("map");
+        assertThat(pipeline.toList()).containsExactly("A1", "A2", "C1", "D1").inOrder();
+        assertThat(pipeline.toSet()).containsExactly("A1", "A2", "C1", "D1");
+        assertThat(pipeline.count()).isEqualTo(4);
+        assertThat(pipeline.findFirst().get()).isEqualTo("A1");
+    }
+
+    @Test
+    public void testPersons() {
+        final List<Person> persons = Person.createPersons(10_000);
+
+        final List<String> expected = persons.stream()
+                .filter(person -> person.getAge() >= 18)
+                .map(person -> new Person(person.getName().toUpperCase(), person.getAge()))
+                .sorted((p1, p2) -> p1.getAge() - p2.getAge())
+                .map(Person::getName)
+                .collect(Collectors.toList());
+
+        final Pipeline<String> pipeline = Pipeline.of(persons)
+                .parallel()
+                .transform(person -> new Person(person.getName().toUpperCase(), person.getAge()))
+                .sorted((p1, p2) -> p1.getAge() - p2.getAge())
+                .hoistableFilter(person -> person.getAge() >= 18)
+                .map(Person::getName);
+
+        assertThat(pipeline.explain(false)).containsExactly("filter+transform", "sorted", "map").inOrder();
+        assertThat(pipeline.toList()).isEqualTo(expected);
+    }
+}
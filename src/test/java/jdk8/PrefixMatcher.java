@@ -0,0 +1,227 @@
+package jdk8;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class finds which of many prefixes a text starts with, e.g. which URL rule a request matches.
+ * <p>
+ * Instead of calling {@link String#startsWith(String)} for every prefix (see
+ * {@link StreamsTest#simpleListFiltering()}), the prefixes are stored in a trie, so one
+ * walk over the first characters of the text finds all matching prefixes. The characters
+ * are stored as 1 to 3 bytes like in UTF-8, so ASCII URLs need one edge per character.
+ * <p>
+ * The trie is built once and then stored in a few arrays. It never changes, so it can be
+ * shared by all threads without locks, and a lookup doesn't create any objects.
+ */
+public final class PrefixMatcher {
+
+    private static final int NO_PREFIX = -1;
+
+    private final String[] prefixes;
+
+    /**
+     * The edges of node n are at the indexes edgeStart[n] until edgeStart[n + 1], sorted by their label.
+     */
+    private final int[] edgeStart;
+    private final byte[] edgeLabels;
+    private final int[] edgeTargets;
+
+    /**
+     * The index of the prefix that ends at a node or {@link #NO_PREFIX}.
+     */
+    private final int[] prefixAtNode;
+
+    private PrefixMatcher(final String[] prefixes, final int[] edgeStart, final byte[] edgeLabels,
+                          final int[] edgeTargets, final int[] prefixAtNode) {
+        this.prefixes = prefixes;
+        this.edgeStart = edgeStart;
+        this.edgeLabels = edgeLabels;
+        this.edgeTargets = edgeTargets;
+        this.prefixAtNode = prefixAtNode;
+    }
+
+    public static PrefixMatcher of(final CharSequence... prefixes) {
+        return of(Arrays.asList(prefixes));
+    }
+
+    /**
+     * @param prefixes the prefixes, if a prefix is contained twice the first index counts
+     * @return the matcher
+     */
+    public static PrefixMatcher of(final Collection<? extends CharSequence> prefixes) {
+        final BuildNode root = new BuildNode();
+        final String[] strings = new String[prefixes.size()];
+        final byte[] bytes = new byte[3];
+        int index = 0;
+        for (CharSequence prefix : prefixes) {
+            strings[index] = prefix.toString();
+            BuildNode node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                final int length = encode(prefix.charAt(i), bytes);
+                for (int b = 0; b < length; b++) {
+                    node = node.children.computeIfAbsent(bytes[b], label -> new BuildNode());
+                }
+            }
+            if (node.prefix == NO_PREFIX) {
+                node.prefix = index;
+            }
+            index++;
+        }
+        return flatten(root, strings);
+    }
+
+    /**
+     * Numbers the nodes breadth first and copies their edges into the arrays.
+     */
+    private static PrefixMatcher flatten(final BuildNode root, final String[] prefixes) {
+        final List<BuildNode> nodes = new ArrayList<>();
+        final Deque<BuildNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        int edges = 0;
+        while (!queue.isEmpty()) {
+            final BuildNode node = queue.poll();
+            node.id = nodes.size();
+            nodes.add(node);
+            edges += node.children.size();
+            queue.addAll(node.children.values());
+        }
+
+        final int[] edgeStart = new int[nodes.size() + 1];
+        final byte[] edgeLabels = new byte[edges];
+        final int[] edgeTargets = new int[edges];
+        final int[] prefixAtNode = new int[nodes.size()];
+        int edge = 0;
+        for (BuildNode node : nodes) {
+            edgeStart[node.id] = edge;
+            prefixAtNode[node.id] = node.prefix;
+            for (Map.Entry<Byte, BuildNode> child : node.children.entrySet()) {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue().id;
+                edge++;
+            }
+        }
+        edgeStart[nodes.size()] = edge;
+        return new PrefixMatcher(prefixes, edgeStart, edgeLabels, edgeTargets, prefixAtNode);
+    }
+
+    /**
+     * @return true if the text starts with any of the prefixes
+     */
+    public boolean matchesAny(final CharSequence text) {
+        return walk(text, 0, true) != NO_PREFIX;
+    }
+
+    /**
+     * @return the index of the longest prefix the text starts with, or -1
+     */
+    public int longestMatch(final CharSequence text) {
+        return walk(text, 0, false);
+    }
+
+    /**
+     * @param text  the text
+     * @param start the index in the text where the prefix has to start
+     * @return the index of the longest prefix the text starts with at the start index, or -1
+     */
+    public int longestMatch(final CharSequence text, final int start) {
+        return walk(text, start, false);
+    }
+
+    public String prefix(final int index) {
+        return prefixes[index];
+    }
+
+    public int size() {
+        return prefixes.length;
+    }
+
+    private int walk(final CharSequence text, final int start, final boolean firstMatch) {
+        int node = 0;
+        int match = prefixAtNode[0];
+        if (match != NO_PREFIX && firstMatch) {
+            return match;
+        }
+        for (int i = start; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                node = child(node, (byte) c);
+            } else if (c < 0x800) {
+                node = child(node, (byte) (0xc0 | c >> 6));
+                node = child(node, (byte) (0x80 | c & 0x3f));
+            } else {
+                node = child(node, (byte) (0xe0 | c >> 12));
+                node = child(node, (byte) (0x80 | c >> 6 & 0x3f));
+                node = child(node, (byte) (0x80 | c & 0x3f));
+            }
+            if (node < 0) {
+                break;
+            }
+            if (prefixAtNode[node] != NO_PREFIX) {
+                match = prefixAtNode[node];
+                if (firstMatch) {
+                    break;
+                }
+            }
+        }
+        return match;
+    }
+
+    /**
+     * @return the child of the node with the label or -1, also -1 if the node is -1
+     */
+    private int child(final int node, final byte label) {
+        if (node < 0) {
+            return -1;
+        }
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final byte current = edgeLabels[middle];
+            if (current < label) {
+                low = middle + 1;
+            } else if (current > label) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the char as 1 to 3 bytes like UTF-8, surrogates are encoded one by one.
+     */
+    private static int encode(final char c, final byte[] bytes) {
+        if (c < 0x80) {
+            bytes[0] = (byte) c;
+            return 1;
+        }
+        if (c < 0x800) {
+            bytes[0] = (byte) (0xc0 | c >> 6);
+            bytes[1] = (byte) (0x80 | c & 0x3f);
+            return 2;
+        }
+        bytes[0] = (byte) (0xe0 | c >> 12);
+        bytes[1] = (byte) (0x80 | c >> 6 & 0x3f);
+        bytes[2] = (byte) (0x80 | c & 0x3f);
+        return 3;
+    }
+
+    private static final class BuildNode {
+
+        /**
+         * Sorted by the signed value of the label, the same order as the binary search.
+         */
+        private final TreeMap<Byte, BuildNode> children = new TreeMap<>();
+        private int prefix = NO_PREFIX;
+        private int id;
+    }
+}
@@ -0,0 +1,117 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link PrefixMatcher} and the {@link SchemePrefixer}.
+ */
+public class PrefixMatcherTest {
+
+    /**
+     * Same as {@link StreamsTest#simpleListFiltering()}.
+     */
+    @Test
+    public void testFilterUrls() {
+        final List<String> urls = Arrays.asList("https://google.de", "https://facebook.de", "https://unhypem.com", "http://uber.com");
+        final PrefixMatcher https = PrefixMatcher.of("https");
+
+        final List<String> httpsUrls = urls.stream()
+                .filter(https::matchesAny)
+                .collect(Collectors.toList());
+
+        assertThat(httpsUrls).hasSize(3);
+        assertThat(httpsUrls).doesNotContain("http://uber.com");
+    }
+
+    @Test
+    public void testLongestMatch() {
+        final PrefixMatcher matcher = PrefixMatcher.of("https://", "https://google.", "https://google.de/maps", "http://");
+
+        assertThat(matcher.longestMatch("https://google.de/maps/place")).isEqualTo(2);
+        assertThat(matcher.longestMatch("https://google.com")).isEqualTo(1);
+        assertThat(matcher.longestMatch("https://facebook.de")).isEqualTo(0);
+        assertThat(matcher.longestMatch("ftp://google.de")).isEqualTo(-1);
+        assertThat(matcher.longestMatch("http")).isEqualTo(-1);
+        assertThat(matcher.longestMatch("xx https://google.de", 3)).isEqualTo(1);
+        assertThat(matcher.prefix(matcher.longestMatch("http://uber.com"))).isEqualTo("http://");
+    }
+
+    @Test
+    public void testNonAsciiAndEmptyPrefixes() {
+        final PrefixMatcher matcher = PrefixMatcher.of("https://bücher.de", "https://€", "https://😀", "https://b");
+
+        assertThat(matcher.longestMatch("https://bücher.de/kaufen")).isEqualTo(0);
+        assertThat(matcher.longestMatch("https://bucher.de")).isEqualTo(3);
+        assertThat(matcher.longestMatch("https://€uro")).isEqualTo(1);
+        assertThat(matcher.longestMatch("https://😀!")).isEqualTo(2);
+        assertThat(matcher.longestMatch("https://😁")).isEqualTo(-1);
+
+        final PrefixMatcher empty = PrefixMatcher.of("", "a");
+        assertThat(empty.matchesAny("xyz")).isTrue();
+        assertThat(empty.longestMatch("abc")).isEqualTo(1);
+        assertThat(PrefixMatcher.of().matchesAny("abc")).isFalse();
+    }
+
+    @Test
+    public void testSameResultAsStartsWith() {
+        final List<String> rules = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rules.add("https://host" + (i % 500) + ".de/path" + i);
+        }
+        final PrefixMatcher matcher = PrefixMatcher.of(rules);
+
+        for (int i = 0; i < 6000; i += 7) {
+            final String url = "https://host" + (i % 500) + ".de/path" + i + "/index.html";
+            int expected = -1;
+            for (int rule = 0; rule < rules.size(); rule++) {
+                if (url.startsWith(rules.get(rule)) && (expected < 0 || rules.get(rule).length() > rules.get(expected).length())) {
+                    expected = rule;
+                }
+            }
+            assertThat(matcher.longestMatch(url)).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Same as {@link LambdasTest#testOwnLambdaWithDefaultMethod()}.
+     */
+    @Test
+    public void testSchemePrefixer() {
+        final SchemePrefixer httpPrefixer = new SchemePrefixer("http://");
+
+        final String prefixedUrl = httpPrefixer.prefix("google.de");
+        final String unPrefixedUrl = httpPrefixer.removeHttpPrefix(prefixedUrl);
+
+        assertThat(prefixedUrl).isEqualTo("http://google.de");
+        assertThat(unPrefixedUrl).isEqualTo("google.de");
+        assertThat(httpPrefixer.prefix("https://google.de")).isEqualTo("https://google.de");
+        assertThat(httpPrefixer.removeHttpPrefix("https://google.de")).isEqualTo("google.de");
+    }
+
+    @Test
+    public void testSchemePrefixerViews() {
+        final SchemePrefixer httpsPrefixer = new SchemePrefixer("https://");
+        final StringBuilder url = new StringBuilder("google.de/maps");
+
+        final CharSequence prefixed = httpsPrefixer.prefixView(url);
+        assertThat(prefixed.length()).isEqualTo(22);
+        assertThat(prefixed.charAt(8)).isEqualTo('g');
+        assertThat(prefixed.subSequence(5, 11).toString()).isEqualTo("://goo");
+
+        final CharSequence stripped = httpsPrefixer.stripView(prefixed);
+        assertThat(stripped.toString()).isEqualTo("google.de/maps");
+        assertThat(stripped.subSequence(7, 9).toString()).isEqualTo("de");
+
+        // the views read from the original url
+        url.setCharAt(0, 'G');
+        assertThat(stripped.charAt(0)).isEqualTo('G');
+        assertThat(httpsPrefixer.stripView(url)).isSameAs(url);
+    }
+}
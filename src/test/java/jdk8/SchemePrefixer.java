@@ -0,0 +1,140 @@
+package jdk8;
+
+/**
+ * This class adds a scheme like "http://" to URLs or removes it, without copying the URL.
+ * <p>
+ * The {@link LambdasTest.UrlPrefixer} creates new strings with {@code "http://" + url} and
+ * {@code substring}. The view methods here return a {@link CharSequence} that reads from
+ * the original URL, so nothing gets copied until {@code toString()} is called, e.g. when
+ * the result is passed to a {@link PrefixMatcher} for the host rules. The known schemes
+ * are found with a {@link PrefixMatcher} as well, so https:// is removed completely and
+ * not only its first 7 characters.
+ */
+public class SchemePrefixer implements LambdasTest.UrlPrefixer {
+
+    private static final PrefixMatcher KNOWN_SCHEMES = PrefixMatcher.of(
+            "http://", "https://", "ws://", "wss://", "ftp://");
+
+    private final String scheme;
+
+    /**
+     * @param scheme the scheme to add, e.g. "https://"
+     */
+    public SchemePrefixer(final String scheme) {
+        this.scheme = scheme;
+    }
+
+    @Override
+    public String prefix(final String url) {
+        return prefixView(url).toString();
+    }
+
+    @Override
+    public String removeHttpPrefix(final String url) {
+        return stripView(url).toString();
+    }
+
+    /**
+     * @return the url if it already has a known scheme, otherwise a view of the scheme followed by the url
+     */
+    public CharSequence prefixView(final CharSequence url) {
+        if (KNOWN_SCHEMES.matchesAny(url)) {
+            return url;
+        }
+        return new Concatenation(scheme, url);
+    }
+
+    /**
+     * @return a view of the url without its scheme, or the url if it has no known scheme
+     */
+    public CharSequence stripView(final CharSequence url) {
+        final int match = KNOWN_SCHEMES.longestMatch(url);
+        if (match < 0) {
+            return url;
+        }
+        return new Slice(url, KNOWN_SCHEMES.prefix(match).length(), url.length());
+    }
+
+    /**
+     * A part of another char sequence.
+     */
+    private static final class Slice implements CharSequence {
+
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+
+        private Slice(final CharSequence source, final int start, final int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+            }
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            if (from < 0 || to > length() || from > to) {
+                throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + length());
+            }
+            return new Slice(source, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(length()).append(source, start, end).toString();
+        }
+    }
+
+    /**
+     * Two char sequences one after the other.
+     */
+    private static final class Concatenation implements CharSequence {
+
+        private final CharSequence first;
+        private final CharSequence second;
+
+        private Concatenation(final CharSequence first, final CharSequence second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int length() {
+            return first.length() + second.length();
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return index < first.length() ? first.charAt(index) : second.charAt(index - first.length());
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            final int split = first.length();
+            if (to <= split) {
+                return first.subSequence(from, to);
+            }
+            if (from >= split) {
+                return second.subSequence(from - split, to - split);
+            }
+            return new Concatenation(first.subSequence(from, split), second.subSequence(0, to - split));
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(length()).append(first).append(second).toString();
+        }
+    }
+}
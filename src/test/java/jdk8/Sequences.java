@@ -0,0 +1,217 @@
+package jdk8;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class creates number sequences that split well for parallel streams.
+ * <p>
+ * {@code Stream.iterate(1, e -> e + 1)} boxes every number and every element depends on
+ * the previous one, so a parallel stream can only split it by copying batches into arrays
+ * on one thread (see {@link StreamsTest#executeAStreamLater()}). Here the n-th element of
+ * a sequence is computed from its index: a sequence with a known length reports its exact
+ * size and gets split in halves like {@link IntStream#range(int, int)}, an infinite one
+ * hands out ranges of growing size without copying any element.
+ */
+public final class Sequences {
+
+    /**
+     * The size of the first range split off an infinite sequence, the next ones grow by this.
+     */
+    static final int BATCH_UNIT = 1 << 10;
+
+    /**
+     * The maximum size of a range split off an infinite sequence.
+     */
+    static final int MAX_BATCH = 1 << 25;
+
+    private Sequences() {
+    }
+
+    /**
+     * @param start the first number
+     * @param step  the difference between two numbers
+     * @param count the amount of numbers
+     * @return start, start + step, start + 2 * step, ... with an exact size
+     */
+    public static IntStream arithmetic(final int start, final int step, final long count) {
+        checkCount(count);
+        return StreamSupport.intStream(new IntProgression(start, step, 0, count, true), false);
+    }
+
+    /**
+     * @param start the first number
+     * @param step  the difference between two numbers
+     * @return the infinite sequence start, start + step, ... like {@code Stream.iterate(start, e -> e + step)}
+     */
+    public static IntStream arithmetic(final int start, final int step) {
+        return StreamSupport.intStream(new IntProgression(start, step, 0, Long.MAX_VALUE, false), false);
+    }
+
+    public static LongStream arithmetic(final long start, final long step, final long count) {
+        checkCount(count);
+        return StreamSupport.longStream(new LongProgression(start, step, 0, count, true), false);
+    }
+
+    public static LongStream arithmetic(final long start, final long step) {
+        return StreamSupport.longStream(new LongProgression(start, step, 0, Long.MAX_VALUE, false), false);
+    }
+
+    /**
+     * All multiples of the divisor in the range, e.g. {@code multiplesOf(2, 1, 201)} are the first
+     * 100 even numbers. Unlike {@code IntStream.range(from, to).filter(...)} the size is known.
+     *
+     * @param divisor       the positive divisor
+     * @param fromInclusive the lower bound
+     * @param toExclusive   the upper bound
+     * @return the ascending multiples
+     */
+    public static IntStream multiplesOf(final int divisor, final int fromInclusive, final int toExclusive) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("Divisor must be positive: " + divisor);
+        }
+        final long first = (long) fromInclusive + Math.floorMod(-fromInclusive, divisor);
+        final long count = first >= toExclusive ? 0 : (toExclusive - 1 - first) / divisor + 1;
+        return arithmetic((int) first, divisor, count);
+    }
+
+    /**
+     * @param start     the first number to test
+     * @param predicate the filter, e.g. {@code StreamsTest::isEven}
+     * @return the infinite ascending sequence of matching numbers, usually followed by a limit
+     */
+    public static IntStream matching(final int start, final IntPredicate predicate) {
+        return arithmetic(start, 1).filter(predicate);
+    }
+
+    private static void checkCount(final long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+    }
+
+    /**
+     * The elements with an index between origin and fence. A sized sequence splits in halves,
+     * an infinite one splits off a prefix that is one batch bigger than the previous one.
+     */
+    private abstract static class IndexSpliterator<S extends Spliterator<?>> {
+
+        long origin;
+        final long fence;
+        final boolean sized;
+        private int batch;
+
+        IndexSpliterator(final long origin, final long fence, final boolean sized) {
+            this.origin = origin;
+            this.fence = fence;
+            this.sized = sized;
+        }
+
+        abstract S slice(long from, long to);
+
+        public S trySplit() {
+            final long remaining = fence - origin;
+            final long prefix;
+            if (sized) {
+                prefix = remaining >>> 1;
+            } else {
+                batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+                prefix = Math.min(batch, remaining);
+            }
+            if (prefix <= 0) {
+                return null;
+            }
+            final S split = slice(origin, origin + prefix);
+            origin += prefix;
+            return split;
+        }
+
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        public int characteristics() {
+            final int characteristics = Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+            return sized ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED : characteristics;
+        }
+    }
+
+    private static final class IntProgression extends IndexSpliterator<Spliterator.OfInt> implements Spliterator.OfInt {
+
+        private final int start;
+        private final int step;
+
+        IntProgression(final int start, final int step, final long origin, final long fence, final boolean sized) {
+            super(origin, fence, sized);
+            this.start = start;
+            this.step = step;
+        }
+
+        @Override
+        Spliterator.OfInt slice(final long from, final long to) {
+            return new IntProgression(start, step, from, to, true);
+        }
+
+        @Override
+        public boolean tryAdvance(final IntConsumer action) {
+            if (origin >= fence) {
+                return false;
+            }
+            action.accept((int) (start + origin++ * (long) step));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            final long to = fence;
+            int value = (int) (start + origin * (long) step);
+            for (long i = origin; i < to; i++) {
+                action.accept(value);
+                value += step;
+            }
+            origin = to;
+        }
+    }
+
+    private static final class LongProgression extends IndexSpliterator<Spliterator.OfLong> implements Spliterator.OfLong {
+
+        private final long start;
+        private final long step;
+
+        LongProgression(final long start, final long step, final long origin, final long fence, final boolean sized) {
+            super(origin, fence, sized);
+            this.start = start;
+            this.step = step;
+        }
+
+        @Override
+        Spliterator.OfLong slice(final long from, final long to) {
+            return new LongProgression(start, step, from, to, true);
+        }
+
+        @Override
+        public boolean tryAdvance(final LongConsumer action) {
+            if (origin >= fence) {
+                return false;
+            }
+            action.accept(start + origin++ * step);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final LongConsumer action) {
+            final long to = fence;
+            long value = start + origin * step;
+            for (long i = origin; i < to; i++) {
+                action.accept(value);
+                value += step;
+            }
+            origin = to;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link Sequences}.
+ */
+public class SequencesTest {
+
+    private static boolean isEven(final int number) {
+        return number % 2 == 0;
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertThat(Sequences.arithmetic(1, 3, 4).boxed().collect(Collectors.toList()))
+                .containsExactly(1, 4, 7, 10).inOrder();
+        assertThat(Sequences.arithmetic(10L, -5L, 3).boxed().collect(Collectors.toList()))
+                .containsExactly(10L, 5L, 0L).inOrder();
+        assertThat(Sequences.arithmetic(1, 1, 0).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testOverflowLikeIterate() {
+        final int[] expected = Stream.iterate(Integer.MAX_VALUE - 2, e -> e + 1).limit(5).mapToInt(e -> e).toArray();
+
+        assertThat(Sequences.arithmetic(Integer.MAX_VALUE - 2, 1, 5).toArray()).isEqualTo(expected);
+        assertThat(Sequences.arithmetic(Integer.MAX_VALUE - 2, 1).limit(5).toArray()).isEqualTo(expected);
+    }
+
+    /**
+     * Same as {@link StreamsTest#executeAStreamLater()}.
+     */
+    @Test
+    public void testFirst100EvenNumbers() {
+        final int[] expected = Stream.iterate(1, e -> e + 1)
+                .filter(SequencesTest::isEven)
+                .limit(100)
+                .mapToInt(e -> e)
+                .toArray();
+
+        assertThat(Sequences.matching(1, SequencesTest::isEven).limit(100).toArray()).isEqualTo(expected);
+        assertThat(Sequences.matching(1, SequencesTest::isEven).parallel().limit(100).toArray()).isEqualTo(expected);
+        assertThat(Sequences.multiplesOf(2, 1, 201).toArray()).isEqualTo(expected);
+        assertThat(Sequences.multiplesOf(2, 1, 201).parallel().toArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testMultiplesOf() {
+        assertThat(Sequences.multiplesOf(3, -7, 7).toArray()).isEqualTo(new int[]{-6, -3, 0, 3, 6});
+        assertThat(Sequences.multiplesOf(5, 1, 5).count()).isEqualTo(0);
+        assertThat(Sequences.multiplesOf(7, -100, 100).toArray())
+                .isEqualTo(IntStream.range(-100, 100).filter(number -> number % 7 == 0).toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        Sequences.arithmetic(1, 1, -1);
+    }
+
+    @Test
+    public void testSizedSequencesSplitInHalves() {
+        final Spliterator.OfInt spliterator = Sequences.arithmetic(0, 2, 1000).spliterator();
+
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)).isTrue();
+        assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(1000);
+
+        final Spliterator.OfInt prefix = spliterator.trySplit();
+        assertThat(prefix.getExactSizeIfKnown()).isEqualTo(500);
+        assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(500);
+        spliterator.tryAdvance((int value) -> assertThat(value).isEqualTo(1000));
+    }
+
+    @Test
+    public void testInfiniteSequencesSplitInGrowingBatches() {
+        final Spliterator.OfLong spliterator = Sequences.arithmetic(0L, 1L).spliterator();
+
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED)).isFalse();
+
+        final Spliterator.OfLong first = spliterator.trySplit();
+        final Spliterator.OfLong second = spliterator.trySplit();
+        assertThat(first.getExactSizeIfKnown()).isEqualTo(Sequences.BATCH_UNIT);
+        assertThat(second.getExactSizeIfKnown()).isEqualTo(2 * Sequences.BATCH_UNIT);
+        second.tryAdvance((long value) -> assertThat(value).isEqualTo(Sequences.BATCH_UNIT));
+    }
+
+    @Test
+    public void testParallelSum() {
+        final long expected = Stream.iterate(1L, e -> e + 1).limit(1_000_000).mapToLong(e -> e).sum();
+
+        assertThat(Sequences.arithmetic(1L, 1L, 1_000_000).parallel().sum()).isEqualTo(expected);
+        assertThat(Sequences.arithmetic(1L, 1L).parallel().limit(1_000_000).sum()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,250 @@
+package jdk8;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class keeps keys ordered by an int value, e.g. characters by their level.
+ * <p>
+ * {@link StreamsTest#filterMapByValueAndCreateAListOfKeys()} looks at every entry of the
+ * map to find the values above 5. Here the keys are grouped by value in a {@link TreeMap},
+ * so a query only visits the values in its range: it takes O(log n) plus the number of
+ * returned keys. Keys with the same value are returned in the order they were put.
+ * <p>
+ * Puts and removes update the index directly and are meant to be rare compared to the
+ * queries. All methods can be called from many threads, every query returns a new list
+ * that doesn't change anymore. {@link #snapshot()} copies the whole index for a series of
+ * queries that must see the same state.
+ *
+ * @param <K> the type of the keys
+ */
+public class SortedValueIndex<K> {
+
+    private final Map<K, Integer> values = new HashMap<>();
+
+    /**
+     * The keys of a value, a single key is stored directly and more keys in a {@link Keys}.
+     */
+    private final NavigableMap<Integer, Object> keysByValue = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final boolean readOnly;
+
+    public SortedValueIndex() {
+        this(false);
+    }
+
+    private SortedValueIndex(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public static <K> SortedValueIndex<K> of(final Map<? extends K, Integer> map) {
+        final SortedValueIndex<K> index = new SortedValueIndex<>();
+        map.forEach(index::put);
+        return index;
+    }
+
+    /**
+     * @param key   the key
+     * @param value the new value of the key
+     * @return the previous value of the key
+     */
+    public OptionalInt put(final K key, final int value) {
+        Objects.requireNonNull(key);
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            final Integer previous = values.put(key, value);
+            if (previous != null) {
+                if (previous == value) {
+                    return OptionalInt.of(previous);
+                }
+                removeFromValue(key, previous);
+            }
+            addToValue(key, value);
+            return previous == null ? OptionalInt.empty() : OptionalInt.of(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the value of the removed key
+     */
+    public OptionalInt remove(final K key) {
+        Objects.requireNonNull(key);
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            final Integer previous = values.remove(key);
+            if (previous == null) {
+                return OptionalInt.empty();
+            }
+            removeFromValue(key, previous);
+            return OptionalInt.of(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public OptionalInt get(final K key) {
+        lock.readLock().lock();
+        try {
+            final Integer value = values.get(key);
+            return value == null ? OptionalInt.empty() : OptionalInt.of(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the keys with a value greater than the threshold, the lowest value first
+     */
+    public List<K> keysWithValueAbove(final int threshold) {
+        return threshold == Integer.MAX_VALUE ? new ArrayList<>() : keysWithValueBetween(threshold + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the keys with a value less than the threshold, the lowest value first
+     */
+    public List<K> keysWithValueBelow(final int threshold) {
+        return threshold == Integer.MIN_VALUE ? new ArrayList<>() : keysWithValueBetween(Integer.MIN_VALUE, threshold - 1);
+    }
+
+    /**
+     * @return the keys with a value between both bounds (inclusive), the lowest value first
+     */
+    public List<K> keysWithValueBetween(final int fromInclusive, final int toInclusive) {
+        final List<K> keys = new ArrayList<>();
+        if (fromInclusive > toInclusive) {
+            return keys;
+        }
+        lock.readLock().lock();
+        try {
+            addKeys(keysByValue.subMap(fromInclusive, true, toInclusive, true).values(), keys, Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return keys;
+    }
+
+    /**
+     * @param k the maximum number of keys
+     * @return the keys with the highest values, the highest value first, empty if k isn't positive
+     */
+    public List<K> top(final int k) {
+        final List<K> keys = new ArrayList<>(Math.max(0, Math.min(k, 1024)));
+        if (k <= 0) {
+            return keys;
+        }
+        lock.readLock().lock();
+        try {
+            addKeys(keysByValue.descendingMap().values(), keys, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return keys;
+    }
+
+    /**
+     * @return a read only copy of the index, puts and removes throw an {@link UnsupportedOperationException}
+     */
+    public SortedValueIndex<K> snapshot() {
+        final SortedValueIndex<K> snapshot = new SortedValueIndex<>(true);
+        lock.readLock().lock();
+        try {
+            snapshot.values.putAll(values);
+            keysByValue.forEach((value, keys) ->
+                    snapshot.keysByValue.put(value, keys instanceof Keys ? new Keys((Keys) keys) : keys));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return snapshot;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A snapshot can't be changed");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addKeys(final Collection<Object> groups, final List<K> target, final int limit) {
+        for (Object group : groups) {
+            if (target.size() >= limit) {
+                return;
+            }
+            if (group instanceof Keys) {
+                for (Object key : (Keys) group) {
+                    if (target.size() >= limit) {
+                        return;
+                    }
+                    target.add((K) key);
+                }
+            } else {
+                target.add((K) group);
+            }
+        }
+    }
+
+    private void addToValue(final K key, final int value) {
+        final Object existing = keysByValue.get(value);
+        if (existing == null) {
+            keysByValue.put(value, key);
+        } else if (existing instanceof Keys) {
+            ((Keys) existing).add(key);
+        } else {
+            final Keys keys = new Keys();
+            keys.add(existing);
+            keys.add(key);
+            keysByValue.put(value, keys);
+        }
+    }
+
+    private void removeFromValue(final K key, final int value) {
+        final Object existing = keysByValue.get(value);
+        if (existing instanceof Keys) {
+            final Keys keys = (Keys) existing;
+            keys.remove(key);
+            if (keys.size() == 1) {
+                keysByValue.put(value, keys.iterator().next());
+            }
+        } else {
+            keysByValue.remove(value);
+        }
+    }
+
+    /**
+     * The keys of a value that has more than one key.
+     */
+    private static final class Keys extends LinkedHashSet<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private Keys() {
+        }
+
+        private Keys(final Keys keys) {
+            super(keys);
+        }
+    }
+}
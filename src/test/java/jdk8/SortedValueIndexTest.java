@@ -0,0 +1,109 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link SortedValueIndex}.
+ */
+public class SortedValueIndexTest {
+
+    /**
+     * Same as {@link StreamsTest#filterMapByValueAndCreateAListOfKeys()}.
+     */
+    @Test
+    public void testKeysWithValueAbove() {
+        final Map<String, Integer> characterLevels = new HashMap<>();
+        characterLevels.put("Fabi", 10);
+        characterLevels.put("Dave", 1);
+        characterLevels.put("Raphy", 2);
+        characterLevels.put("Done", 8);
+
+        final SortedValueIndex<String> index = SortedValueIndex.of(characterLevels);
+
+        assertThat(index.keysWithValueAbove(5)).containsExactly("Done", "Fabi").inOrder();
+        assertThat(index.keysWithValueBelow(8)).containsExactly("Dave", "Raphy").inOrder();
+        assertThat(index.keysWithValueBetween(2, 8)).containsExactly("Raphy", "Done").inOrder();
+        assertThat(index.top(3)).containsExactly("Fabi", "Done", "Raphy").inOrder();
+        assertThat(index.keysWithValueAbove(Integer.MAX_VALUE)).isEmpty();
+        assertThat(index.keysWithValueBetween(8, 2)).isEmpty();
+    }
+
+    @Test
+    public void testUpdates() {
+        final SortedValueIndex<String> index = new SortedValueIndex<>();
+        index.put("Fabi", 10);
+        index.put("Dave", 10);
+        index.put("Raphy", 10);
+
+        assertThat(index.top(2)).containsExactly("Fabi", "Dave").inOrder();
+
+        assertThat(index.put("Dave", 1).getAsInt()).isEqualTo(10);
+        assertThat(index.remove("Fabi").getAsInt()).isEqualTo(10);
+        assertThat(index.remove("Fabi").isPresent()).isFalse();
+
+        assertThat(index.top(10)).containsExactly("Raphy", "Dave").inOrder();
+        assertThat(index.get("Dave").getAsInt()).isEqualTo(1);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.top(0)).isEmpty();
+        assertThat(index.top(-1)).isEmpty();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        new SortedValueIndex<String>().put(null, 10);
+    }
+
+    @Test
+    public void testSnapshot() {
+        final SortedValueIndex<String> index = new SortedValueIndex<>();
+        index.put("Fabi", 10);
+        index.put("Dave", 10);
+
+        final SortedValueIndex<String> snapshot = index.snapshot();
+        index.put("Fabi", 1);
+        index.put("Raphy", 20);
+
+        assertThat(snapshot.top(10)).containsExactly("Fabi", "Dave").inOrder();
+        assertThat(index.top(10)).containsExactly("Raphy", "Dave", "Fabi").inOrder();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsReadOnly() {
+        new SortedValueIndex<String>().snapshot().put("Fabi", 10);
+    }
+
+    @Test
+    public void testSameResultAsFilter() {
+        final Random random = new Random(42);
+        final Map<Integer, Integer> map = new HashMap<>();
+        final SortedValueIndex<Integer> index = new SortedValueIndex<>();
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(20_000);
+            if (random.nextInt(10) == 0) {
+                map.remove(key);
+                index.remove(key);
+            } else {
+                final int value = random.nextInt(1000) - 500;
+                map.put(key, value);
+                index.put(key, value);
+            }
+        }
+
+        final List<Integer> expected = map.entrySet().stream()
+                .filter(e -> e.getValue() > 250)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        assertThat(index.keysWithValueAbove(250)).containsExactlyElementsIn(expected);
+        assertThat(index.size()).isEqualTo(map.size());
+        assertThat(map.get(index.top(1).get(0))).isEqualTo(map.values().stream().max(Integer::compare).get());
+    }
+}
@@ -0,0 +1,355 @@
+package jdk8;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts events in calendar buckets of a zone, e.g. per hour in "Europe/Berlin".
+ * <p>
+ * The buckets follow the local time like in {@link DateTimeTest#testDaylightSavings()}:
+ * the day of the switch to summer time has 23 hours, the day back 25 hours, and the hour
+ * that happens twice in autumn gets two buckets.
+ * <p>
+ * The last buckets are kept in a ring. When an event starts a new bucket only the oldest
+ * slot of the ring gets cleared, nothing is rescanned. Every slot has one counter per
+ * stripe and every thread writes into its own stripe, so concurrent writers don't fight
+ * over the same cache line. The boundaries are only computed with java.time when a new
+ * bucket starts, the events in the current bucket just compare two longs.
+ */
+public class TimeBucketAggregator {
+
+    /**
+     * Longs per stripe, count, sum and writers plus padding to fill a cache line.
+     */
+    static final int CELL_SIZE = 8;
+
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int WRITERS = 2;
+
+    private final ZoneId zone;
+    private final ChronoUnit unit;
+    private final int capacity;
+    private final int stripeMask;
+
+    /**
+     * The bucket in every slot of the ring, null while the slot gets cleared for a new bucket.
+     */
+    private final AtomicReferenceArray<Window> windows;
+    private final AtomicLongArray cells;
+    private final LongAdder tooOld = new LongAdder();
+
+    /**
+     * The number of the newest bucket, -1 before the first event. The window of a bucket
+     * is published before this gets increased.
+     */
+    private volatile long head = -1;
+
+    /**
+     * @param zone     the zone of the calendar
+     * @param unit     the size of a bucket, minutes, hours or days
+     * @param capacity the number of buckets to keep
+     */
+    public TimeBucketAggregator(final ZoneId zone, final ChronoUnit unit, final int capacity) {
+        this(zone, unit, capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    TimeBucketAggregator(final ZoneId zone, final ChronoUnit unit, final int capacity, final int stripes) {
+        if (unit != ChronoUnit.MINUTES && unit != ChronoUnit.HOURS && unit != ChronoUnit.DAYS) {
+            throw new IllegalArgumentException("Unit must be minutes, hours or days: " + unit);
+        }
+        if (capacity < 1 || stripes < 1) {
+            throw new IllegalArgumentException("Capacity and stripes must be positive");
+        }
+        this.zone = zone;
+        this.unit = unit;
+        this.capacity = capacity;
+
+        final int stripeCount = Integer.highestOneBit(stripes * 2 - 1);
+        this.stripeMask = stripeCount - 1;
+        this.windows = new AtomicReferenceArray<>(capacity);
+        this.cells = new AtomicLongArray(capacity * stripeCount * CELL_SIZE);
+    }
+
+    public void record(final long epochMillis) {
+        record(epochMillis, 0);
+    }
+
+    /**
+     * Counts an event and adds its value to the sum of its bucket.
+     * <p>
+     * The writers of a stripe are counted while they add, so a new bucket only clears the
+     * slot when no event of the old bucket is half added. If the slot was taken by a newer
+     * bucket in the meantime, the event looks for its bucket again.
+     *
+     * @param epochMillis the time of the event
+     * @param value       the value of the event, e.g. a response time
+     */
+    public void record(final long epochMillis, final long value) {
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        while (true) {
+            final Window window = windowOf(epochMillis);
+            if (window == null) {
+                tooOld.increment();
+                return;
+            }
+            final int slot = slot(window.bucket);
+            final int cell = (slot * (stripeMask + 1) + stripe) * CELL_SIZE;
+            cells.getAndIncrement(cell + WRITERS);
+            try {
+                if (windows.get(slot) == window) {
+                    cells.getAndIncrement(cell + COUNT);
+                    if (value != 0) {
+                        cells.getAndAdd(cell + SUM, value);
+                    }
+                    return;
+                }
+            } finally {
+                cells.getAndDecrement(cell + WRITERS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of events that were older than the oldest bucket
+     */
+    public long tooOld() {
+        return tooOld.sum();
+    }
+
+    /**
+     * @param epochMillis a time inside of the bucket
+     * @return the number of events in the bucket, 0 if the bucket isn't kept
+     */
+    public long count(final long epochMillis) {
+        return sum(find(epochMillis, head), COUNT);
+    }
+
+    /**
+     * @param epochMillis a time inside of the bucket
+     * @return the sum of the values in the bucket, 0 if the bucket isn't kept
+     */
+    public long sum(final long epochMillis) {
+        return sum(find(epochMillis, head), SUM);
+    }
+
+    /**
+     * @return the number of events in all kept buckets
+     */
+    public long totalCount() {
+        final long newest = head;
+        long total = 0;
+        for (long bucket = Math.max(0, newest - capacity + 1); bucket <= newest; bucket++) {
+            total += sum(window(bucket), COUNT);
+        }
+        return total;
+    }
+
+    /**
+     * @return a snapshot of all kept buckets, the oldest first
+     */
+    public List<Bucket> buckets() {
+        final long newest = head;
+        final List<Bucket> buckets = new ArrayList<>();
+        for (long bucket = Math.max(0, newest - capacity + 1); bucket <= newest; bucket++) {
+            final Window window = window(bucket);
+            if (window == null) {
+                continue;
+            }
+            final long count = sum(window, COUNT);
+            final long sum = sum(window, SUM);
+            // skips a bucket that was replaced while it was summed
+            if (windows.get(slot(bucket)) == window) {
+                buckets.add(new Bucket(
+                        Instant.ofEpochMilli(window.start).atZone(zone),
+                        Instant.ofEpochMilli(window.end).atZone(zone),
+                        count,
+                        sum));
+            }
+        }
+        return buckets;
+    }
+
+    private Window windowOf(final long epochMillis) {
+        final long newest = head;
+        if (newest >= 0) {
+            final Window window = window(newest);
+            if (window != null && epochMillis >= window.start) {
+                if (epochMillis < window.end) {
+                    return window;
+                }
+            } else if (window != null) {
+                return find(epochMillis, newest);
+            }
+        }
+        return advance(epochMillis);
+    }
+
+    /**
+     * @return the window of the bucket, or null if its slot is used by another bucket
+     */
+    private Window window(final long bucket) {
+        final Window window = windows.get(slot(bucket));
+        return window != null && window.bucket == bucket ? window : null;
+    }
+
+    /**
+     * Searches the bucket from the newest to the oldest one, late events are usually recent.
+     */
+    private Window find(final long epochMillis, final long newest) {
+        for (long bucket = newest; bucket >= 0 && bucket > newest - capacity; bucket--) {
+            final Window window = window(bucket);
+            if (window == null) {
+                return null;
+            }
+            if (epochMillis >= window.start) {
+                return epochMillis < window.end ? window : null;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Window advance(final long epochMillis) {
+        long newest = head;
+        if (newest >= 0) {
+            Window window = window(newest);
+            if (epochMillis < window.end) {
+                // another thread advanced in the meantime
+                return find(epochMillis, newest);
+            }
+            // step bucket by bucket, but start over after a gap longer than the ring
+            for (int i = 0; i < capacity; i++) {
+                newest++;
+                window = open(newest, window.end);
+                if (epochMillis < window.end) {
+                    return window;
+                }
+            }
+        }
+        return open(newest + 1, bucketStart(epochMillis));
+    }
+
+    /**
+     * Clears the slot of the new bucket and makes it the newest one. The slot is closed
+     * first, then the writers of the old bucket are waited for, so none of their events
+     * can end up in the new bucket.
+     */
+    private Window open(final long bucket, final long start) {
+        final int slot = slot(bucket);
+        windows.set(slot, null);
+        final int stripes = stripeMask + 1;
+        for (int i = slot * stripes * CELL_SIZE; i < (slot + 1) * stripes * CELL_SIZE; i += CELL_SIZE) {
+            while (cells.get(i + WRITERS) != 0) {
+                Thread.yield();
+            }
+            cells.set(i + COUNT, 0);
+            cells.set(i + SUM, 0);
+        }
+        final Window window = new Window(bucket, start, nextBucketStart(start));
+        windows.set(slot, window);
+        head = bucket;
+        return window;
+    }
+
+    private long bucketStart(final long epochMillis) {
+        final ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(zone);
+        if (unit == ChronoUnit.DAYS) {
+            return time.toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        // keeps the offset, so the repeated hour in autumn gets its own bucket
+        return time.truncatedTo(unit).toInstant().toEpochMilli();
+    }
+
+    private long nextBucketStart(final long start) {
+        if (unit == ChronoUnit.DAYS) {
+            return Instant.ofEpochMilli(start).atZone(zone).toLocalDate().plusDays(1)
+                    .atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        final long duration = unit.getDuration().toMillis();
+        final long next = bucketStart(start + duration);
+        return next > start ? next : start + duration;
+    }
+
+    private int slot(final long bucket) {
+        return (int) (bucket % capacity);
+    }
+
+    /**
+     * @return the sum of the field over all stripes, 0 if the window was replaced while summing
+     */
+    private long sum(final Window window, final int field) {
+        if (window == null) {
+            return 0;
+        }
+        final int slot = slot(window.bucket);
+        final int stripes = stripeMask + 1;
+        long sum = 0;
+        for (int i = slot * stripes * CELL_SIZE; i < (slot + 1) * stripes * CELL_SIZE; i += CELL_SIZE) {
+            sum += cells.get(i + field);
+        }
+        return windows.get(slot) == window ? sum : 0;
+    }
+
+    /**
+     * The number and time range of the bucket in a slot, published as one object so a
+     * reader never sees the start of one bucket with the end of another.
+     */
+    private static final class Window {
+
+        private final long bucket;
+        private final long start;
+        private final long end;
+
+        private Window(final long bucket, final long start, final long end) {
+            this.bucket = bucket;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * A snapshot of one bucket.
+     */
+    public static final class Bucket {
+
+        private final ZonedDateTime start;
+        private final ZonedDateTime end;
+        private final long count;
+        private final long sum;
+
+        Bucket(final ZonedDateTime start, final ZonedDateTime end, final long count, final long sum) {
+            this.start = start;
+            this.end = end;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public ZonedDateTime getStart() {
+            return start;
+        }
+
+        public ZonedDateTime getEnd() {
+            return end;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return start + "=" + count;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link TimeBucketAggregator}.
+ */
+public class TimeBucketAggregatorTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static long millis(final String localDateTime, final ZoneId zone) {
+        return LocalDateTime.parse(localDateTime).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testCountPerMinute() {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.MINUTES, 60);
+
+        aggregator.record(millis("2017-07-09T10:15:00", BERLIN), 10);
+        aggregator.record(millis("2017-07-09T10:15:59.999", BERLIN), 20);
+        aggregator.record(millis("2017-07-09T10:16:00", BERLIN), 5);
+        // a late event of the previous minute
+        aggregator.record(millis("2017-07-09T10:15:30", BERLIN), 30);
+
+        assertThat(aggregator.count(millis("2017-07-09T10:15:10", BERLIN))).isEqualTo(3);
+        assertThat(aggregator.sum(millis("2017-07-09T10:15:10", BERLIN))).isEqualTo(60);
+        assertThat(aggregator.count(millis("2017-07-09T10:16:10", BERLIN))).isEqualTo(1);
+        assertThat(aggregator.totalCount()).isEqualTo(4);
+        assertThat(aggregator.buckets()).hasSize(2);
+    }
+
+    @Test
+    public void testEmptyBucketsInBetween() {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.HOURS, 24);
+
+        aggregator.record(millis("2017-07-09T10:15:00", BERLIN));
+        aggregator.record(millis("2017-07-09T13:00:00", BERLIN));
+
+        final List<TimeBucketAggregator.Bucket> buckets = aggregator.buckets();
+        assertThat(buckets).hasSize(4);
+        assertThat(buckets.get(0).getStart().toLocalDateTime()).isEqualTo(LocalDateTime.of(2017, 7, 9, 10, 0));
+        assertThat(buckets.get(1).getCount()).isEqualTo(0);
+        assertThat(buckets.get(3).getStart().toLocalDateTime()).isEqualTo(LocalDateTime.of(2017, 7, 9, 13, 0));
+        assertThat(buckets.get(3).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOldBucketsGetDropped() {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.MINUTES, 3);
+
+        for (int minute = 0; minute < 10; minute++) {
+            aggregator.record(millis("2017-07-09T10:00:00", BERLIN) + TimeUnit.MINUTES.toMillis(minute));
+        }
+        aggregator.record(millis("2017-07-09T10:06:00", BERLIN));
+
+        assertThat(aggregator.buckets()).hasSize(3);
+        assertThat(aggregator.buckets().get(0).getStart().getMinute()).isEqualTo(7);
+        assertThat(aggregator.totalCount()).isEqualTo(3);
+        assertThat(aggregator.tooOld()).isEqualTo(1);
+
+        // a gap longer than the whole ring starts over
+        aggregator.record(millis("2017-07-10T10:00:30", BERLIN));
+        assertThat(aggregator.totalCount()).isEqualTo(1);
+        assertThat(aggregator.count(millis("2017-07-10T10:00:00", BERLIN))).isEqualTo(1);
+    }
+
+    /**
+     * Same day as in {@link DateTimeTest#testDaylightSavings()}.
+     */
+    @Test
+    public void testDayWithDaylightSavingHas23Hours() {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(NEW_YORK, ChronoUnit.DAYS, 7);
+
+        aggregator.record(millis("2017-03-11T12:00:00", NEW_YORK));
+        aggregator.record(millis("2017-03-12T00:00:00", NEW_YORK));
+        aggregator.record(millis("2017-03-12T23:59:59", NEW_YORK));
+        aggregator.record(millis("2017-03-13T00:00:00", NEW_YORK));
+
+        final List<TimeBucketAggregator.Bucket> buckets = aggregator.buckets();
+        assertThat(buckets).hasSize(3);
+        final TimeBucketAggregator.Bucket day = buckets.get(1);
+        assertThat(ChronoUnit.HOURS.between(day.getStart(), day.getEnd())).isEqualTo(23);
+        assertThat(day.getCount()).isEqualTo(2);
+        assertThat(buckets.get(2).getStart()).isEqualTo(ZonedDateTime.of(2017, 3, 13, 0, 0, 0, 0, NEW_YORK));
+    }
+
+    @Test
+    public void testRepeatedHourGetsTwoBuckets() {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.HOURS, 24);
+        // clock moves 1 hour back at 3:00 on 29th october 2017, 2:00 - 3:00 happens twice
+        final ZonedDateTime summerTime = ZonedDateTime.of(2017, 10, 29, 2, 30, 0, 0, BERLIN).withEarlierOffsetAtOverlap();
+        final ZonedDateTime winterTime = summerTime.withLaterOffsetAtOverlap();
+
+        aggregator.record(millis("2017-10-29T01:30:00", BERLIN));
+        aggregator.record(summerTime.toInstant().toEpochMilli());
+        aggregator.record(winterTime.toInstant().toEpochMilli());
+        aggregator.record(winterTime.toInstant().toEpochMilli());
+        aggregator.record(millis("2017-10-29T03:30:00", BERLIN));
+
+        final List<TimeBucketAggregator.Bucket> buckets = aggregator.buckets();
+        assertThat(buckets).hasSize(4);
+        assertThat(buckets.get(1).getStart().getHour()).isEqualTo(2);
+        assertThat(buckets.get(1).getCount()).isEqualTo(1);
+        assertThat(buckets.get(2).getStart().getHour()).isEqualTo(2);
+        assertThat(buckets.get(2).getCount()).isEqualTo(2);
+        assertThat(buckets.get(3).getStart().getHour()).isEqualTo(3);
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.MINUTES, 60);
+        final long start = millis("2017-07-09T10:00:00", BERLIN);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    aggregator.record(start + i * 10L, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(aggregator.totalCount()).isEqualTo(800_000);
+        assertThat(aggregator.tooOld()).isEqualTo(0);
+        assertThat(aggregator.buckets()).hasSize(17);
+        assertThat(aggregator.buckets().get(0).getCount()).isEqualTo(8 * 6000);
+    }
+
+    @Test
+    public void testLateEventsNeverLeakIntoReusedSlot() throws InterruptedException {
+        // with a single slot every new minute reuses the slot of the previous one
+        final TimeBucketAggregator aggregator = new TimeBucketAggregator(BERLIN, ChronoUnit.MINUTES, 1, 4);
+        final long start = millis("2017-07-09T10:00:00", BERLIN);
+        final AtomicLong current = new AtomicLong(start);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        for (int thread = 0; thread < 2; thread++) {
+            executor.execute(() -> {
+                while (running.get()) {
+                    aggregator.record(current.get());
+                }
+            });
+        }
+        try {
+            for (int minute = 1; minute <= 2000; minute++) {
+                final long time = start + minute * 60_000L;
+                // opens the minute while the recorders still write into the previous one
+                aggregator.record(time);
+                assertThat(aggregator.count(time)).isEqualTo(1);
+                current.set(time);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedUnit() {
+        new TimeBucketAggregator(BERLIN, ChronoUnit.WEEKS, 10);
+    }
+}
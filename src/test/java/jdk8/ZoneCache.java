@@ -0,0 +1,213 @@
+package jdk8;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class caches zone ids and their offset transitions for hot timestamp paths.
+ * <p>
+ * {@link ZoneId#of(String)} looks up the id every time and throws a
+ * {@link java.time.zone.ZoneRulesException} for unknown ids (see
+ * {@link LocalizationTest#testGetUnknownZoneId()}). Here every id is only resolved once,
+ * unknown ids included, and {@link #find(String)} returns an empty optional for them.
+ * <p>
+ * For every zone the offset transitions between the given years are copied into a
+ * primitive array. Converting epoch millis into local date and time fields then only needs
+ * a binary search in this array and some arithmetic, without creating any objects. Times
+ * outside of the years fall back to the {@link ZoneRules}.
+ */
+public class ZoneCache {
+
+    static final int MAX_UNKNOWN_IDS = 10_000;
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final int fromYear;
+    private final int toYear;
+    private final ConcurrentHashMap<String, Optional<ZoneId>> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger unknownIds = new AtomicInteger();
+    private final ConcurrentHashMap<ZoneId, ZoneTransitions> transitions = new ConcurrentHashMap<>();
+
+    /**
+     * @param fromYear the first year with precomputed transitions
+     * @param toYear   the last year with precomputed transitions
+     */
+    public ZoneCache(final int fromYear, final int toYear) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("fromYear must not be after toYear");
+        }
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+    }
+
+    /**
+     * Same as {@link ZoneId#of(String)} but without an exception for unknown ids.
+     *
+     * @param id the zone id, e.g. "America/New_York"
+     * @return the zone or an empty optional if the id is unknown
+     */
+    public Optional<ZoneId> find(final String id) {
+        final Optional<ZoneId> cached = ids.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<ZoneId> zone;
+        try {
+            zone = Optional.of(ZoneId.of(id));
+        } catch (DateTimeException e) {
+            zone = Optional.empty();
+            // don't let random ids fill up the memory
+            if (unknownIds.incrementAndGet() > MAX_UNKNOWN_IDS) {
+                return zone;
+            }
+        }
+        final Optional<ZoneId> existing = ids.putIfAbsent(id, zone);
+        return existing != null ? existing : zone;
+    }
+
+    public ZoneTransitions transitions(final ZoneId zone) {
+        return transitions.computeIfAbsent(zone, z -> new ZoneTransitions(z.getRules(), fromYear, toYear));
+    }
+
+    /**
+     * Converts epoch millis into the local date and time in the zone.
+     *
+     * @param zone        the zone
+     * @param epochMillis the milliseconds since 1970-01-01T00:00Z
+     * @param fields      the fields to fill, they can be reused for every call
+     * @return the given fields
+     */
+    public LocalFields toLocalFields(final ZoneId zone, final long epochMillis, final LocalFields fields) {
+        final int offsetSeconds = transitions(zone).offsetSeconds(epochMillis);
+        fields.set(epochMillis + offsetSeconds * 1000L, offsetSeconds);
+        return fields;
+    }
+
+    /**
+     * The offsets of a zone between two years.
+     */
+    public static final class ZoneTransitions {
+
+        private final ZoneRules rules;
+        private final long startMillis;
+        private final long endMillis;
+        private final long[] transitionMillis;
+
+        /**
+         * The offset at index i is valid before transition i, the last one after the last transition.
+         */
+        private final int[] offsetSeconds;
+
+        ZoneTransitions(final ZoneRules rules, final int fromYear, final int toYear) {
+            this.rules = rules;
+            this.startMillis = LocalDateTime.of(fromYear, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli() - MILLIS_PER_DAY;
+            this.endMillis = LocalDateTime.of(toYear + 1, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli() + MILLIS_PER_DAY;
+
+            final List<ZoneOffsetTransition> found = new ArrayList<>();
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(startMillis));
+            while (transition != null && transition.toEpochSecond() * 1000 < endMillis) {
+                found.add(transition);
+                transition = rules.nextTransition(transition.getInstant());
+            }
+
+            transitionMillis = new long[found.size()];
+            offsetSeconds = new int[found.size() + 1];
+            offsetSeconds[0] = rules.getOffset(Instant.ofEpochMilli(startMillis)).getTotalSeconds();
+            for (int i = 0; i < found.size(); i++) {
+                transitionMillis[i] = found.get(i).toEpochSecond() * 1000;
+                offsetSeconds[i + 1] = found.get(i).getOffsetAfter().getTotalSeconds();
+            }
+        }
+
+        public int offsetSeconds(final long epochMillis) {
+            if (epochMillis < startMillis || epochMillis >= endMillis) {
+                return rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds();
+            }
+            final int index = Arrays.binarySearch(transitionMillis, epochMillis);
+            return index >= 0 ? offsetSeconds[index + 1] : offsetSeconds[-index - 1];
+        }
+
+        int size() {
+            return transitionMillis.length;
+        }
+    }
+
+    /**
+     * The fields of a local date and time. One instance can be reused for many conversions.
+     */
+    public static final class LocalFields {
+
+        private int year;
+        private int month;
+        private int dayOfMonth;
+        private int hour;
+        private int minute;
+        private int second;
+        private int millis;
+        private int offsetSeconds;
+
+        void set(final long localEpochMillis, final int offsetSeconds) {
+            this.offsetSeconds = offsetSeconds;
+
+            final long epochDay = Math.floorDiv(localEpochMillis, MILLIS_PER_DAY);
+            final int millisOfDay = (int) Math.floorMod(localEpochMillis, MILLIS_PER_DAY);
+            hour = millisOfDay / 3_600_000;
+            minute = millisOfDay / 60_000 % 60;
+            second = millisOfDay / 1000 % 60;
+            millis = millisOfDay % 1000;
+
+            final int date = FastIsoDates.packedDate(epochDay);
+            year = date >> 9;
+            month = date >>> 5 & 0xf;
+            dayOfMonth = date & 0x1f;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public int getMonth() {
+            return month;
+        }
+
+        public int getDayOfMonth() {
+            return dayOfMonth;
+        }
+
+        public int getHour() {
+            return hour;
+        }
+
+        public int getMinute() {
+            return minute;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        public int getMillis() {
+            return millis;
+        }
+
+        public int getOffsetSeconds() {
+            return offsetSeconds;
+        }
+
+        public LocalDateTime toLocalDateTime() {
+            return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, millis * 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package jdk8;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the {@link ZoneCache}.
+ */
+public class ZoneCacheTest {
+
+    private final ZoneCache cache = new ZoneCache(2000, 2030);
+
+    @Test
+    public void testFindZones() {
+        assertThat(cache.find("America/New_York").get()).isEqualTo(ZoneId.of("America/New_York"));
+        assertThat(cache.find("America/New_York").get()).isSameAs(cache.find("America/New_York").get());
+        assertThat(cache.find("+02:00").get()).isEqualTo(ZoneId.of("+02:00"));
+    }
+
+    /**
+     * Same as {@link LocalizationTest#testGetUnknownZoneId()} but without an exception.
+     */
+    @Test
+    public void testFindUnknownZone() {
+        assertThat(cache.find("test").isPresent()).isFalse();
+        assertThat(cache.find("test").isPresent()).isFalse();
+    }
+
+    /**
+     * Same as {@link DateTimeTest#testDaylightSavings()}.
+     */
+    @Test
+    public void testDaylightSavings() {
+        final ZoneId zone = cache.find("America/New_York").get();
+        final long oneAm = ZonedDateTime.of(2017, 3, 12, 1, 0, 0, 0, zone).toInstant().toEpochMilli();
+
+        final ZoneCache.LocalFields fields = cache.toLocalFields(zone, oneAm + 3 * 3_600_000, new ZoneCache.LocalFields());
+
+        // 1:00 + daylight saving + 3:00
+        assertThat(fields.getHour()).isEqualTo(5);
+        assertThat(fields.getOffsetSeconds()).isEqualTo(-4 * 3600);
+    }
+
+    @Test
+    public void testSameFieldsAsZonedDateTime() {
+        final Random random = new Random(42);
+        final ZoneCache.LocalFields fields = new ZoneCache.LocalFields();
+
+        for (String id : new String[]{"America/New_York", "Europe/Berlin", "Australia/Lord_Howe", "Asia/Kolkata", "UTC"}) {
+            final ZoneId zone = cache.find(id).get();
+            for (int i = 0; i < 10_000; i++) {
+                // 1950 to 2050, also outside of the precomputed years
+                final long epochMillis = -631_152_000_000L + (long) (random.nextDouble() * 3_155_760_000_000L);
+                final LocalDateTime expected = Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDateTime();
+
+                cache.toLocalFields(zone, epochMillis, fields);
+
+                assertThat(fields.toLocalDateTime()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testFieldsAtTransition() {
+        final ZoneId zone = cache.find("Europe/Berlin").get();
+        // clocks moved from 2:00 to 3:00 on 26th march 2017
+        final long transition = ZonedDateTime.of(2017, 3, 26, 3, 0, 0, 0, zone).toInstant().toEpochMilli();
+        final ZoneCache.LocalFields fields = new ZoneCache.LocalFields();
+
+        assertThat(cache.toLocalFields(zone, transition - 1, fields).toLocalDateTime())
+                .isEqualTo(LocalDateTime.of(2017, 3, 26, 1, 59, 59, 999_000_000));
+        assertThat(cache.toLocalFields(zone, transition, fields).toLocalDateTime())
+                .isEqualTo(LocalDateTime.of(2017, 3, 26, 3, 0));
+    }
+
+    @Test
+    public void testTransitionsOfFixedOffset() {
+        assertThat(cache.transitions(ZoneId.of("UTC")).size()).isEqualTo(0);
+        assertThat(cache.transitions(ZoneId.of("Europe/Berlin")).size()).isEqualTo(62);
+    }
+}
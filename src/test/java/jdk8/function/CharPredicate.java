@@ -0,0 +1,72 @@
+package jdk8.function;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Same as a {@link Predicate} of a {@link Character}, but without boxing the char.
+ */
+@FunctionalInterface
+public interface CharPredicate {
+
+    boolean test(char c);
+
+    static CharPredicate is(final char expected) {
+        return c -> c == expected;
+    }
+
+    /**
+     * @return a predicate that matches the chars contained in the text
+     */
+    static CharPredicate anyOf(final CharSequence chars) {
+        final String text = chars.toString();
+        return c -> text.indexOf(c) >= 0;
+    }
+
+    default CharPredicate and(final CharPredicate other) {
+        Objects.requireNonNull(other);
+        return c -> test(c) && other.test(c);
+    }
+
+    default CharPredicate or(final CharPredicate other) {
+        Objects.requireNonNull(other);
+        return c -> test(c) || other.test(c);
+    }
+
+    default CharPredicate negate() {
+        return c -> !test(c);
+    }
+
+    /**
+     * @return a predicate for {@link String#chars()}, ints outside of the char range don't match
+     */
+    default IntPredicate asIntPredicate() {
+        return value -> value >= Character.MIN_VALUE && value <= Character.MAX_VALUE && test((char) value);
+    }
+
+    /**
+     * @return the index of the first matching char of the text, or -1
+     */
+    default int indexIn(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (test(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of matching chars of the text
+     */
+    default int countIn(final CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (test(text.charAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+package jdk8.function;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Same as a {@link BiPredicate} with two ints, but without boxing them, e.g. {@code (a, b) -> a < b}.
+ */
+@FunctionalInterface
+public interface IntIntPredicate {
+
+    boolean test(int first, int second);
+
+    default IntIntPredicate and(final IntIntPredicate other) {
+        Objects.requireNonNull(other);
+        return (first, second) -> test(first, second) && other.test(first, second);
+    }
+
+    default IntIntPredicate or(final IntIntPredicate other) {
+        Objects.requireNonNull(other);
+        return (first, second) -> test(first, second) || other.test(first, second);
+    }
+
+    default IntIntPredicate negate() {
+        return (first, second) -> !test(first, second);
+    }
+
+    /**
+     * @return a predicate that changes both ints with the operator before they get tested
+     */
+    default IntIntPredicate compose(final IntUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (first, second) -> test(before.applyAsInt(first), before.applyAsInt(second));
+    }
+
+    /**
+     * @return a predicate with the first argument fixed to the value
+     */
+    default IntPredicate withFirst(final int first) {
+        return second -> test(first, second);
+    }
+
+    /**
+     * @return a predicate with the second argument fixed to the value
+     */
+    default IntPredicate withSecond(final int second) {
+        return first -> test(first, second);
+    }
+}
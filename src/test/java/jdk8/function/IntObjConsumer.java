@@ -0,0 +1,30 @@
+package jdk8.function;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Same as a {@link BiConsumer} with an int as first argument, but without boxing the int,
+ * e.g. a callback that gets the index and the element of a list.
+ *
+ * @param <T> the type of the second argument
+ */
+@FunctionalInterface
+public interface IntObjConsumer<T> {
+
+    void accept(int value, T t);
+
+    default IntObjConsumer<T> andThen(final IntObjConsumer<? super T> after) {
+        Objects.requireNonNull(after);
+        return (value, t) -> {
+            accept(value, t);
+            after.accept(value, t);
+        };
+    }
+
+    default IntObjConsumer<T> compose(final IntUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (value, t) -> accept(before.applyAsInt(value), t);
+    }
+}
@@ -0,0 +1,38 @@
+package jdk8.function;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Same as a {@link BiFunction} with an int as second argument, but without boxing the int.
+ *
+ * @param <T> the type of the first argument
+ * @param <R> the type of the result
+ */
+@FunctionalInterface
+public interface ObjIntFunction<T, R> {
+
+    R apply(T t, int value);
+
+    default <V> ObjIntFunction<T, V> andThen(final Function<? super R, ? extends V> after) {
+        Objects.requireNonNull(after);
+        return (t, value) -> after.apply(apply(t, value));
+    }
+
+    /**
+     * @return a function that changes the int with the operator before it gets applied
+     */
+    default ObjIntFunction<T, R> compose(final IntUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (t, value) -> apply(t, before.applyAsInt(value));
+    }
+
+    /**
+     * @return a function with the int argument fixed to the value
+     */
+    default Function<T, R> withInt(final int value) {
+        return t -> apply(t, value);
+    }
+}
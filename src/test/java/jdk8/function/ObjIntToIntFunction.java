@@ -0,0 +1,35 @@
+package jdk8.function;
+
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Same as a {@link ToIntBiFunction} with an int as second argument, but without boxing,
+ * e.g. an accumulator {@code (word, length) -> length + word.length()}.
+ *
+ * @param <T> the type of the first argument
+ */
+@FunctionalInterface
+public interface ObjIntToIntFunction<T> {
+
+    int applyAsInt(T t, int value);
+
+    default ObjIntToIntFunction<T> andThen(final IntUnaryOperator after) {
+        Objects.requireNonNull(after);
+        return (t, value) -> after.applyAsInt(applyAsInt(t, value));
+    }
+
+    default ObjIntToIntFunction<T> compose(final IntUnaryOperator before) {
+        Objects.requireNonNull(before);
+        return (t, value) -> applyAsInt(t, before.applyAsInt(value));
+    }
+
+    /**
+     * @return a function with the int argument fixed to the value
+     */
+    default ToIntFunction<T> withInt(final int value) {
+        return t -> applyAsInt(t, value);
+    }
+}
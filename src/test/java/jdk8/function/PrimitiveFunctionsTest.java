@@ -0,0 +1,188 @@
+package jdk8.function;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * This class is used to test the primitive functional interfaces of this package,
+ * see {@link jdk8.FunctionalInterfacesTest} for the boxed ones.
+ * <p>
+ * The allocation tests count the bytes that the current thread allocates while a function
+ * gets called many times. Some bytes are allocated by the measurement itself, so only a
+ * small limit is allowed instead of 0.
+ */
+public class PrimitiveFunctionsTest {
+
+    private static final int CALLS = 100_000;
+    private static final long MEASUREMENT_BYTES = 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void testObjIntFunction() {
+        final ObjIntFunction<String, String> repeat = (text, times) -> String.join("", Collections.nCopies(times, text));
+
+        assertThat(repeat.apply("ab", 3)).isEqualTo("ababab");
+        assertThat(repeat.compose(times -> times * 2).apply("ab", 2)).isEqualTo("abababab");
+        assertThat(repeat.andThen(String::length).apply("ab", 3)).isEqualTo(6);
+        assertThat(repeat.withInt(2).apply("x")).isEqualTo("xx");
+    }
+
+    @Test
+    public void testObjIntToIntFunction() {
+        final List<String> words = Arrays.asList("Lorem", "ipsum", "dolor");
+        final ObjIntToIntFunction<String> addLength = (word, length) -> length + word.length();
+
+        int length = 0;
+        for (String word : words) {
+            length = addLength.applyAsInt(word, length);
+        }
+        assertThat(length).isEqualTo(15);
+        assertThat(addLength.andThen(value -> -value).applyAsInt("abc", 1)).isEqualTo(-4);
+        assertThat(addLength.compose(value -> value * 10).applyAsInt("abc", 1)).isEqualTo(13);
+        assertThat(addLength.withInt(100).applyAsInt("abc")).isEqualTo(103);
+    }
+
+    @Test
+    public void testIntIntPredicate() {
+        final IntIntPredicate lessThan = (first, second) -> first < second;
+        final IntIntPredicate even = (first, second) -> (first + second) % 2 == 0;
+
+        assertThat(lessThan.test(1, 2)).isTrue();
+        assertThat(lessThan.negate().test(1, 2)).isFalse();
+        assertThat(lessThan.and(even).test(1, 3)).isTrue();
+        assertThat(lessThan.and(even).test(1, 2)).isFalse();
+        assertThat(lessThan.or(even).test(3, 1)).isTrue();
+        assertThat(lessThan.compose(value -> -value).test(1, 2)).isFalse();
+
+        final IntPredicate lessThanTen = lessThan.withSecond(10);
+        assertThat(lessThanTen.test(9)).isTrue();
+        assertThat(lessThan.withFirst(10).test(9)).isFalse();
+    }
+
+    @Test
+    public void testIntObjConsumer() {
+        final List<String> calls = new ArrayList<>();
+        final IntObjConsumer<String> first = (index, element) -> calls.add(index + ":" + element);
+        final IntObjConsumer<Object> second = (index, element) -> calls.add("second " + index);
+
+        final IntObjConsumer<String> both = first.andThen(second).compose(index -> index + 1);
+        final List<String> elements = Arrays.asList("a", "b");
+        for (int i = 0; i < elements.size(); i++) {
+            both.accept(i, elements.get(i));
+        }
+
+        assertThat(calls).containsExactly("1:a", "second 1", "2:b", "second 2").inOrder();
+    }
+
+    @Test
+    public void testCharPredicate() {
+        final CharPredicate vowel = CharPredicate.anyOf("aeiou");
+        final CharPredicate letter = Character::isLetter;
+
+        assertThat(vowel.test('e')).isTrue();
+        assertThat(vowel.negate().and(letter).countIn("Lorem ipsum!")).isEqualTo(6);
+        assertThat(vowel.or(CharPredicate.is('!')).countIn("Lorem ipsum!")).isEqualTo(5);
+        assertThat(vowel.indexIn("Lorem")).isEqualTo(1);
+        assertThat(vowel.indexIn("xyz")).isEqualTo(-1);
+        assertThat("Lorem ipsum".chars().filter(vowel.asIntPredicate()).count()).isEqualTo(4);
+        assertThat(vowel.asIntPredicate().test('a' + 0x10000)).isFalse();
+    }
+
+    @Test
+    public void testNoAllocationPerCall() {
+        final IntIntPredicate lessThan = (first, second) -> first < second;
+        final IntIntPredicate composed = lessThan.negate().and((first, second) -> first != 1000).compose(value -> value * 2);
+        final ObjIntToIntFunction<String> addLength = ((ObjIntToIntFunction<String>) (word, length) -> length + word.length())
+                .andThen(value -> value + 1000)
+                .compose(value -> value - 1000);
+        final CharPredicate vowel = CharPredicate.anyOf("aeiou").or(CharPredicate.is('y')).negate();
+        final int[] sum = new int[1];
+        final IntObjConsumer<String> consumer = ((IntObjConsumer<String>) (value, text) -> sum[0] += text.length())
+                .andThen((value, text) -> sum[0] += value >= 1000 ? 1 : 0)
+                .compose(value -> value + 1000);
+
+        final int[] results = new int[3];
+
+        final Runnable predicateCalls = () -> {
+            for (int i = 0; i < CALLS; i++) {
+                if (composed.test(i + 1000, i)) {
+                    results[0]++;
+                }
+            }
+        };
+        final Runnable functionCalls = () -> {
+            int length = 0;
+            for (int i = 0; i < CALLS; i++) {
+                length = addLength.applyAsInt("Lorem", length);
+            }
+            results[1] = length;
+        };
+        final Runnable charCalls = () -> {
+            for (int i = 0; i < CALLS; i++) {
+                if (vowel.test((char) ('a' + i % 26))) {
+                    results[2]++;
+                }
+            }
+        };
+        final Runnable consumerCalls = () -> {
+            for (int i = 0; i < CALLS; i++) {
+                consumer.accept(i, "Lorem");
+            }
+        };
+
+        for (Runnable calls : Arrays.asList(predicateCalls, functionCalls, charCalls, consumerCalls)) {
+            assertThat(allocatedBytes(calls)).isLessThan(MEASUREMENT_BYTES);
+        }
+        // allocatedBytes() runs the calls twice
+        assertThat(results[0]).isEqualTo(2 * CALLS);
+        assertThat(results[1]).isEqualTo(CALLS * 5);
+        assertThat(results[2]).isGreaterThan(0);
+        assertThat(sum[0]).isEqualTo(2 * CALLS * 6);
+    }
+
+    /**
+     * Makes sure that {@link #allocatedBytes(Runnable)} would notice boxing.
+     */
+    @Test
+    public void testBoxedCallsAllocate() {
+        final BiPredicate<Integer, Integer> lessThan = (first, second) -> first < second;
+        final Function<Integer, Integer> twice = value -> value * 2;
+
+        final int[] matches = new int[1];
+
+        final long allocated = allocatedBytes(() -> {
+            for (int i = 0; i < CALLS; i++) {
+                if (lessThan.test(twice.apply(i + 1000), i + 1000)) {
+                    matches[0]++;
+                }
+            }
+        });
+
+        assertThat(allocated).isGreaterThan((long) CALLS);
+        assertThat(matches[0]).isEqualTo(0);
+    }
+
+    /**
+     * @return the bytes allocated by the current thread while the calls run
+     */
+    private static long allocatedBytes(final Runnable calls) {
+        final long threadId = Thread.currentThread().getId();
+        // the first run loads the classes of the lambdas
+        calls.run();
+        final long before = THREADS.getThreadAllocatedBytes(threadId);
+        calls.run();
+        return THREADS.getThreadAllocatedBytes(threadId) - before;
+    }
+}
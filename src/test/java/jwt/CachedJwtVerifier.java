@@ -0,0 +1,119 @@
+package jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class verifies tokens with a {@link JWTVerifier} and remembers the verified tokens.
+ * <p>
+ * Verifying a token decodes the Base64 parts, parses the JSON and calculates the signature.
+ * If the same token gets verified again, the decoded token is taken from a Caffeine cache.
+ * Every token is cached until its "exp" claim (or at most the given time to live), and a
+ * cached token whose "exp" has passed gets rejected without verifying it again. Tokens that
+ * fail the verification are never cached.
+ * <p>
+ * One instance should be shared by all threads. The {@link Algorithm}s of java-jwt don't
+ * hold any state between calls, so the verifier and its algorithm can be used concurrently.
+ */
+public class CachedJwtVerifier {
+
+    private final JWTVerifier verifier;
+    private final LongSupplier currentTimeMillis;
+    private final Cache<String, DecodedJWT> verified;
+
+    /**
+     * @param verifier    the verifier for uncached tokens
+     * @param maximumSize the maximum number of tokens to remember
+     * @param maximumTtl  how long a token without "exp" claim gets remembered
+     */
+    public CachedJwtVerifier(final JWTVerifier verifier, final long maximumSize, final Duration maximumTtl) {
+        this(verifier, maximumSize, maximumTtl, System::currentTimeMillis);
+    }
+
+    CachedJwtVerifier(final JWTVerifier verifier, final long maximumSize, final Duration maximumTtl,
+                      final LongSupplier currentTimeMillis) {
+        this.verifier = verifier;
+        this.currentTimeMillis = currentTimeMillis;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpiresAtClaim(maximumTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    public static CachedJwtVerifier of(final Algorithm algorithm, final long maximumSize, final Duration maximumTtl) {
+        return new CachedJwtVerifier(JWT.require(algorithm).build(), maximumSize, maximumTtl);
+    }
+
+    /**
+     * Same as {@link JWTVerifier#verify(String)}.
+     *
+     * @param token the token to verify
+     * @return the decoded token
+     * @throws JWTVerificationException if the token is invalid or expired
+     */
+    public DecodedJWT verify(final String token) throws JWTVerificationException {
+        final DecodedJWT cached = verified.getIfPresent(token);
+        if (cached != null) {
+            final Date expiresAt = cached.getExpiresAt();
+            if (expiresAt != null && expiresAt.getTime() <= currentTimeMillis.getAsLong()) {
+                verified.invalidate(token);
+                throw new TokenExpiredException(String.format("The Token has expired on %s.", expiresAt));
+            }
+            return cached;
+        }
+
+        final DecodedJWT decoded = verifier.verify(token);
+        verified.put(token, decoded);
+        return decoded;
+    }
+
+    public CacheStats stats() {
+        return verified.stats();
+    }
+
+    /**
+     * Removes a token from the cache when its "exp" claim is reached.
+     */
+    private final class ExpiresAtClaim implements Expiry<String, DecodedJWT> {
+
+        private final long maximumTtlNanos;
+
+        private ExpiresAtClaim(final long maximumTtlNanos) {
+            this.maximumTtlNanos = maximumTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(final String token, final DecodedJWT decoded, final long currentTime) {
+            final Date expiresAt = decoded.getExpiresAt();
+            if (expiresAt == null) {
+                return maximumTtlNanos;
+            }
+            final long ttlMillis = expiresAt.getTime() - currentTimeMillis.getAsLong();
+            return Math.max(0, Math.min(maximumTtlNanos, TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(final String token, final DecodedJWT decoded, final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(final String token, final DecodedJWT decoded, final long currentTime, final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
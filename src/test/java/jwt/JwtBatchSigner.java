@@ -0,0 +1,274 @@
+package jwt;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * This class creates many HMAC signed tokens in one go, e.g. for a bulk export.
+ * <p>
+ * {@code JWT.create().sign(algorithm)} serializes the same header again for every token
+ * and creates a new {@link Mac} for every signature. Here the header gets encoded once,
+ * the claims are written into a buffer that is reused for every token, and every thread
+ * keeps its own Mac. The tokens are compatible with the verifier of java-jwt.
+ * <p>
+ * The items get signed in chunks: a chunk is signed in parallel on all cores and then
+ * passed to the sink in the original order, so only one chunk of tokens is in memory.
+ */
+public class JwtBatchSigner {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private static final byte[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final String macAlgorithm;
+    private final SecretKeySpec key;
+    private final byte[] encodedHeader;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    private JwtBatchSigner(final String jwtAlgorithm, final String macAlgorithm, final byte[] secret) {
+        this.macAlgorithm = macAlgorithm;
+        this.key = new SecretKeySpec(secret, macAlgorithm);
+
+        final byte[] header = ("{\"typ\":\"JWT\",\"alg\":\"" + jwtAlgorithm + "\"}").getBytes(StandardCharsets.UTF_8);
+        final byte[] encoded = new byte[base64Length(header.length)];
+        base64Url(header, header.length, encoded, 0);
+        this.encodedHeader = encoded;
+    }
+
+    public static JwtBatchSigner hmac256(final byte[] secret) {
+        return new JwtBatchSigner("HS256", "HmacSHA256", secret);
+    }
+
+    public static JwtBatchSigner hmac384(final byte[] secret) {
+        return new JwtBatchSigner("HS384", "HmacSHA384", secret);
+    }
+
+    public static JwtBatchSigner hmac512(final byte[] secret) {
+        return new JwtBatchSigner("HS512", "HmacSHA512", secret);
+    }
+
+    /**
+     * Writes the claims of one item, e.g. {@code (person, claims) -> claims.add("name", person.getName())}.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface ClaimsWriter<T> {
+
+        void write(T item, Claims claims);
+    }
+
+    public <T> String sign(final T item, final ClaimsWriter<? super T> claimsWriter) {
+        return workers.get().sign(item, claimsWriter);
+    }
+
+    /**
+     * Signs a token for every item and passes the tokens to the sink in the order of the items.
+     * The sink is only called from the calling thread.
+     *
+     * @param items        the items to create tokens for
+     * @param claimsWriter writes the claims of an item
+     * @param sink         receives the tokens
+     * @param <T>          the type of the items
+     * @return the number of signed tokens
+     */
+    @SuppressWarnings("unchecked")
+    public <T> long signAll(final Iterable<? extends T> items, final ClaimsWriter<? super T> claimsWriter,
+                            final Consumer<? super String> sink) {
+        final Object[] chunk = new Object[CHUNK_SIZE];
+        final String[] tokens = new String[CHUNK_SIZE];
+        final Iterator<? extends T> iterator = items.iterator();
+        long count = 0;
+
+        while (iterator.hasNext()) {
+            int size = 0;
+            while (size < CHUNK_SIZE && iterator.hasNext()) {
+                chunk[size++] = iterator.next();
+            }
+            IntStream.range(0, size)
+                    .parallel()
+                    .forEach(i -> tokens[i] = sign((T) chunk[i], claimsWriter));
+            for (int i = 0; i < size; i++) {
+                sink.accept(tokens[i]);
+            }
+            count += size;
+        }
+        return count;
+    }
+
+    /**
+     * The claims of one token as JSON object.
+     */
+    public static final class Claims {
+
+        private final StringBuilder json = new StringBuilder(256);
+
+        public Claims add(final String name, final String value) {
+            appendName(name);
+            appendString(value);
+            return this;
+        }
+
+        public Claims add(final String name, final long value) {
+            appendName(name);
+            json.append(value);
+            return this;
+        }
+
+        public Claims add(final String name, final boolean value) {
+            appendName(name);
+            json.append(value);
+            return this;
+        }
+
+        private void reset() {
+            json.setLength(0);
+            json.append('{');
+        }
+
+        private void close() {
+            json.append('}');
+        }
+
+        private void appendName(final String name) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(name);
+            json.append(':');
+        }
+
+        private void appendString(final String value) {
+            if (value == null) {
+                json.append("null");
+                return;
+            }
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+    }
+
+    /**
+     * The buffers and the Mac of one thread.
+     */
+    private final class Worker {
+
+        private final Mac mac;
+        private final Claims claims = new Claims();
+        // replaces lone surrogates like String.getBytes instead of stopping in the middle of the payload
+        private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer payload = ByteBuffer.allocate(256);
+        private byte[] token = new byte[512];
+        private final byte[] signature;
+
+        private Worker() {
+            try {
+                mac = Mac.getInstance(macAlgorithm);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(macAlgorithm + " is not available", e);
+            }
+            signature = new byte[mac.getMacLength()];
+        }
+
+        private <T> String sign(final T item, final ClaimsWriter<? super T> claimsWriter) {
+            claims.reset();
+            claimsWriter.write(item, claims);
+            claims.close();
+            encodePayload(claims.json);
+
+            final int payloadLength = payload.position();
+            final int signingInputLength = encodedHeader.length + 1 + base64Length(payloadLength);
+            final int tokenLength = signingInputLength + 1 + base64Length(signature.length);
+            if (token.length < tokenLength) {
+                token = new byte[Math.max(tokenLength, token.length * 2)];
+            }
+
+            System.arraycopy(encodedHeader, 0, token, 0, encodedHeader.length);
+            token[encodedHeader.length] = '.';
+            base64Url(payload.array(), payloadLength, token, encodedHeader.length + 1);
+
+            try {
+                mac.update(token, 0, signingInputLength);
+                mac.doFinal(signature, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            token[signingInputLength] = '.';
+            base64Url(signature, signature.length, token, signingInputLength + 1);
+
+            return new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+        }
+
+        private void encodePayload(final CharSequence json) {
+            final CharBuffer chars = CharBuffer.wrap(json);
+            payload.clear();
+            utf8.reset();
+            CoderResult result = utf8.encode(chars, payload, true);
+            while (result.isOverflow()) {
+                final ByteBuffer bigger = ByteBuffer.wrap(Arrays.copyOf(payload.array(), payload.capacity() * 2));
+                bigger.position(payload.position());
+                payload = bigger;
+                result = utf8.encode(chars, payload, true);
+            }
+            if (result.isError() || utf8.flush(payload).isError()) {
+                throw new IllegalArgumentException("Claims are not valid UTF-16: " + result);
+            }
+        }
+    }
+
+    private static int base64Length(final int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * Encodes the first bytes of the source as Base64 for URLs without padding.
+     */
+    private static void base64Url(final byte[] src, final int length, final byte[] dst, final int offset) {
+        int d = offset;
+        int s = 0;
+        for (; s + 2 < length; s += 3) {
+            final int bits = (src[s] & 0xff) << 16 | (src[s + 1] & 0xff) << 8 | (src[s + 2] & 0xff);
+            dst[d++] = BASE64_URL[bits >>> 18 & 0x3f];
+            dst[d++] = BASE64_URL[bits >>> 12 & 0x3f];
+            dst[d++] = BASE64_URL[bits >>> 6 & 0x3f];
+            dst[d++] = BASE64_URL[bits & 0x3f];
+        }
+        final int remaining = length - s;
+        if (remaining == 1) {
+            final int bits = (src[s] & 0xff) << 16;
+            dst[d++] = BASE64_URL[bits >>> 18 & 0x3f];
+            dst[d] = BASE64_URL[bits >>> 12 & 0x3f];
+        } else if (remaining == 2) {
+            final int bits = (src[s] & 0xff) << 16 | (src[s + 1] & 0xff) << 8;
+            dst[d++] = BASE64_URL[bits >>> 18 & 0x3f];
+            dst[d++] = BASE64_URL[bits >>> 12 & 0x3f];
+            dst[d] = BASE64_URL[bits >>> 6 & 0x3f];
+        }
+    }
+}